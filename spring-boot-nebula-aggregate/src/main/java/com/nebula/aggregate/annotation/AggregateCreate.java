@@ -22,6 +22,7 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import org.springframework.core.annotation.AliasFor;
 
 /**
  * @author : wh
@@ -33,4 +34,16 @@ import java.lang.annotation.Target;
 @Documented
 @CreateOldObj
 public @interface AggregateCreate {
+    
+    /**
+     * 是否延迟生成旧对象快照，开启后聚合根修改前需调用 AbstractOldObj.markDirty
+     */
+    @AliasFor(annotation = CreateOldObj.class)
+    boolean lazy() default false;
+    
+    /**
+     * 是否记录字段指纹，开启后 AggregateDiff 判断是否变化时先比较指纹，未变化时不构建 javers diff
+     */
+    @AliasFor(annotation = CreateOldObj.class)
+    boolean fingerprint() default false;
 }
@@ -32,4 +32,14 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface CreateOldObj {
+    
+    /**
+     * 是否延迟生成旧对象快照，开启后聚合根修改前需调用 AbstractOldObj.markDirty
+     */
+    boolean lazy() default false;
+    
+    /**
+     * 是否记录字段指纹，开启后 AggregateDiff 判断是否变化时先比较指纹，未变化时不构建 javers diff
+     */
+    boolean fingerprint() default false;
 }
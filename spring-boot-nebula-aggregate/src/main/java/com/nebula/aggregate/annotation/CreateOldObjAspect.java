@@ -18,14 +18,27 @@
 package com.nebula.aggregate.annotation;
 
 import com.nebula.aggregate.core.AbstractOldObj;
-import com.nebula.base.utils.JsonUtil;
+import com.nebula.aggregate.snapshot.ReflectiveSnapshotStrategy;
+import com.nebula.aggregate.snapshot.SnapshotStrategy;
+import com.nebula.aggregate.snapshot.StructuralHasher;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Component;
 
 /**
+ * 快照策略默认使用反射深拷贝，可注册 {@link SnapshotStrategy} bean 替换，如 JsonSnapshotStrategy；
+ * 注解 lazy 为 true 时只记录结构指纹，首次修改前才拷贝；fingerprint 为 true 时额外记录字段指纹供 AggregateDiff 快速判断
+ *
  * @author : wh
  * @date : 2023/12/18 19:57
  * @description:
@@ -35,16 +48,48 @@ import org.springframework.stereotype.Component;
 @Component
 public class CreateOldObjAspect {
     
+    private static final CreateOldObj DEFAULT_ANNOTATION = AnnotationUtils.synthesizeAnnotation(CreateOldObj.class);
+    
+    private final SnapshotStrategy snapshotStrategy;
+    
+    private final StructuralHasher hasher = new StructuralHasher();
+    
+    /**
+     * 方法上合并后的注解，未找到时为默认值
+     */
+    private final Map<Method, CreateOldObj> annotationCache = new ConcurrentHashMap<>();
+    
+    public CreateOldObjAspect(ObjectProvider<SnapshotStrategy> snapshotStrategy) {
+        this.snapshotStrategy = snapshotStrategy.getIfAvailable(ReflectiveSnapshotStrategy::new);
+    }
+    
     @AfterReturning(pointcut = "@annotation(com.nebula.aggregate.annotation.AggregateCreate) || " +
             "@annotation(com.nebula.aggregate.annotation.CreateOldObj)", returning = "returnVal")
     public void handleRequestMethod(JoinPoint pjp, Object returnVal) {
         if (returnVal instanceof AbstractOldObj) {
-            ((AbstractOldObj) returnVal).setOldObject(copy(returnVal));
+            CreateOldObj annotation = findAnnotation(pjp);
+            if (annotation.lazy()) {
+                ((AbstractOldObj) returnVal).lazyOldObject(snapshotStrategy, hasher);
+            } else {
+                ((AbstractOldObj) returnVal).setOldObject(copy(returnVal));
+            }
+            if (annotation.fingerprint()) {
+                ((AbstractOldObj) returnVal).fingerprint(hasher);
+            }
         }
     }
     
     public Object copy(Object oldObject) {
-        return JsonUtil.json2JavaBean(JsonUtil.toJSONString(oldObject), oldObject.getClass());
+        return snapshotStrategy.snapshot(oldObject);
+    }
+    
+    private CreateOldObj findAnnotation(JoinPoint pjp) {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        Class<?> targetClass = pjp.getTarget() == null ? method.getDeclaringClass() : AopUtils.getTargetClass(pjp.getTarget());
+        return annotationCache.computeIfAbsent(AopUtils.getMostSpecificMethod(method, targetClass), specificMethod -> {
+            CreateOldObj annotation = AnnotatedElementUtils.findMergedAnnotation(specificMethod, CreateOldObj.class);
+            return annotation != null ? annotation : DEFAULT_ANNOTATION;
+        });
     }
     
 }
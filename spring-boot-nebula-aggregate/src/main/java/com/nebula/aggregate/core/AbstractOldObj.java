@@ -17,9 +17,17 @@
  
 package com.nebula.aggregate.core;
 
+import com.nebula.aggregate.snapshot.SnapshotStrategy;
+import com.nebula.aggregate.snapshot.StructuralHasher;
 import org.javers.core.metamodel.annotation.DiffIgnore;
 
 /**
+ * 旧对象快照支持立即拷贝和延迟拷贝两种方式
+ * <p>
+ * 延迟拷贝时加载后只记录结构指纹，修改聚合根前需调用 {@link #markDirty()} 在首次修改前生成快照，只读的聚合根不会产生拷贝；
+ * 未调用 markDirty 就修改了聚合根时无法还原旧对象，{@link #getOld()} 检测到指纹变化会抛出 IllegalStateException；
+ * 指纹对值类型按完整内容计算64位摘要，不依赖32位 hashCode，见 {@link StructuralHasher}
+ *
  * @author : wh
  * @date : 2023/12/8 11:11
  * @description:
@@ -29,12 +37,84 @@ public abstract class AbstractOldObj<T> {
     @DiffIgnore
     private T oldObject;
     
+    @DiffIgnore
+    private transient LazySnapshot lazySnapshot;
+    
+    @DiffIgnore
+    private transient StructuralHasher.FieldHashes fieldHashes;
+    
     public void setOldObject(T oldObject) {
         this.oldObject = oldObject;
+        this.lazySnapshot = null;
+    }
+    
+    /**
+     * 延迟生成旧对象快照
+     *
+     * @param snapshotStrategy 快照策略
+     * @param hasher           结构指纹
+     */
+    public void lazyOldObject(SnapshotStrategy snapshotStrategy, StructuralHasher hasher) {
+        this.oldObject = null;
+        this.lazySnapshot = new LazySnapshot(snapshotStrategy, hasher, hasher.hash(this));
+    }
+    
+    /**
+     * 记录创建时的字段指纹，{@link AggregateDiff} 先比较指纹，指纹不同时才真正比较
+     *
+     * @param hasher 结构指纹
+     */
+    public void fingerprint(StructuralHasher hasher) {
+        this.fieldHashes = hasher.fieldHashes(this);
+    }
+    
+    /**
+     * @return 创建时的字段指纹，未开启时为 null
+     */
+    public StructuralHasher.FieldHashes fieldHashes() {
+        return fieldHashes;
+    }
+    
+    /**
+     * 修改聚合根前调用，延迟快照时在首次修改前生成旧对象
+     */
+    public void markDirty() {
+        LazySnapshot pending = lazySnapshot;
+        if (pending != null) {
+            // 先清空，避免快照策略序列化时经 getOld 重入
+            this.lazySnapshot = null;
+            this.oldObject = pending.take();
+        }
     }
     
     public T getOld() {
+        if (lazySnapshot != null) {
+            // 未调用过 markDirty，按内容摘要计算的指纹未变时视为未修改，此时拷贝与加载时的快照一致
+            if (lazySnapshot.hasher.hash(this) != lazySnapshot.fingerprint) {
+                throw new IllegalStateException(getClass().getName() + " modified without markDirty, lazy snapshot lost");
+            }
+            markDirty();
+        }
         return oldObject;
     }
     
+    private class LazySnapshot {
+        
+        private final SnapshotStrategy snapshotStrategy;
+        
+        private final StructuralHasher hasher;
+        
+        private final long fingerprint;
+        
+        LazySnapshot(SnapshotStrategy snapshotStrategy, StructuralHasher hasher, long fingerprint) {
+            this.snapshotStrategy = snapshotStrategy;
+            this.hasher = hasher;
+            this.fingerprint = fingerprint;
+        }
+        
+        @SuppressWarnings("unchecked")
+        T take() {
+            return (T) snapshotStrategy.snapshot(AbstractOldObj.this);
+        }
+    }
 }
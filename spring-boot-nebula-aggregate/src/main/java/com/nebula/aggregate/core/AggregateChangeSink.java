@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.aggregate.core;
+
+/**
+ * {@link AggregateDiff} 变化事件接收者，diff 只遍历一次，每个变化回调一次
+ * <p>
+ * 按需实现关心的回调，例如只把发生变化的列拼成 UPDATE 语句
+ *
+ * @author : wh
+ * @date : 2024/10/12 10:15
+ * @description:
+ */
+public interface AggregateChangeSink {
+    
+    /**
+     * 新增对象
+     *
+     * @param object 新对象
+     */
+    default void added(Object object) {
+    }
+    
+    /**
+     * 删除对象
+     *
+     * @param object 旧对象
+     */
+    default void removed(Object object) {
+    }
+    
+    /**
+     * 已存在对象的属性变化，新增和删除对象的属性不会回调
+     *
+     * @param object   属性所属的对象（新版本）
+     * @param property 属性名
+     * @param oldValue 旧值
+     * @param newValue 新值
+     */
+    default void propertyChanged(Object object, String property, Object oldValue, Object newValue) {
+    }
+}
@@ -18,20 +18,29 @@
 package com.nebula.aggregate.core;
 
 import com.google.common.collect.Lists;
+import com.nebula.aggregate.snapshot.StructuralHasher;
 import com.nebula.base.utils.DataUtils;
+import com.nebula.base.utils.FieldAccessor;
 import com.nebula.base.utils.PropertyFunc;
 import com.nebula.base.utils.ReflectionUtils;
 import com.nebula.base.utils.StringUtils;
+import com.nebula.base.utils.SystemUtil;
+import com.nebula.base.utils.ThreadPoolBuilder;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
 import org.javers.core.Changes;
@@ -40,9 +49,11 @@ import org.javers.core.JaversBuilder;
 import org.javers.core.diff.Change;
 import org.javers.core.diff.Diff;
 import org.javers.core.diff.ListCompareAlgorithm;
+import org.javers.core.diff.changetype.InitialValueChange;
 import org.javers.core.diff.changetype.NewObject;
 import org.javers.core.diff.changetype.ObjectRemoved;
 import org.javers.core.diff.changetype.PropertyChange;
+import org.javers.core.diff.changetype.TerminalValueChange;
 import org.javers.core.diff.changetype.container.ContainerElementChange;
 import org.javers.core.diff.changetype.container.ElementValueChange;
 import org.javers.core.diff.changetype.container.ListChange;
@@ -50,6 +61,7 @@ import org.javers.core.diff.changetype.container.ValueAdded;
 import org.javers.core.diff.changetype.container.ValueRemoved;
 import org.javers.core.metamodel.annotation.DiffIgnore;
 import org.javers.core.metamodel.annotation.Id;
+import org.javers.core.metamodel.object.UnboundedValueObjectId;
 
 /**
  * @author : wh
@@ -61,12 +73,58 @@ public class AggregateDiff {
     
     private static final ConcurrentHashMap<String, List<String>> PROPERTIES_CACHE = new ConcurrentHashMap<>();
     
+    /**
+     * 并行比较的元素数量阈值，低于该值时顺序比较
+     */
+    public static final int PARALLEL_THRESHOLD = 10_000;
+    
     private static final Javers javers = JaversBuilder.javers().withListCompareAlgorithm(ListCompareAlgorithm.LEVENSHTEIN_DISTANCE).build();
     
-    private final Diff diff;
+    private final Object currentVersion;
+    
+    private final DiffEngine engine;
+    
+    /**
+     * 聚合根创建时的字段指纹，为 null 表示未开启
+     */
+    private final StructuralHasher.FieldHashes fieldHashes;
+    
+    /**
+     * 开启指纹时旧对象在需要真正比较时才获取，延迟快照的聚合根未变化时不会产生拷贝
+     */
+    private AbstractOldObj<?> oldSource;
+    
+    private Object oldVersion;
+    
+    /**
+     * 指纹比较结果，true 确定有变化，false 确定无变化，null 需要真正比较
+     */
+    private Boolean fingerprintChanged;
+    
+    private boolean fingerprintCompared;
+    
+    /**
+     * NATIVE 引擎或开启指纹时首次需要对象图比较时才构建
+     */
+    private Diff diff;
     
     public AggregateDiff(Object oldVersion, Object currentVersion) {
-        this.diff = javers.compare(oldVersion, currentVersion);
+        this(oldVersion, currentVersion, DiffEngine.JAVERS);
+    }
+    
+    /**
+     * @param oldVersion     旧对象
+     * @param currentVersion 新对象
+     * @param engine         diff 引擎
+     */
+    public AggregateDiff(Object oldVersion, Object currentVersion, DiffEngine engine) {
+        this.oldVersion = oldVersion;
+        this.currentVersion = currentVersion;
+        this.engine = engine;
+        this.fieldHashes = null;
+        if (engine == DiffEngine.JAVERS) {
+            this.diff = javers.compare(oldVersion, currentVersion);
+        }
     }
     
     /**
@@ -76,11 +134,107 @@ public class AggregateDiff {
      * @param <T>
      */
     public <T extends AbstractAggregate<T>> AggregateDiff(T currentVersion) {
-        this.diff = javers.compare(currentVersion.getOld(), currentVersion);
+        this(currentVersion, DiffEngine.JAVERS);
+    }
+    
+    /**
+     * 聚合根记录了字段指纹时（{@code @AggregateCreate(fingerprint = true)}），先比较指纹：
+     * 不可变值类型字段按 equals 精确比较，其他字段指纹不同即可确定有变化，指纹相同不足以证明未变化，仍会构建 diff 确认；
+     * propertyHasChange 只对根对象独有（嵌套对象上没有同名属性）的不可变值类型属性直接判断，其余与 javers 语义一致
+     *
+     * @param currentVersion 聚合根
+     * @param engine         diff 引擎
+     * @param <T>
+     */
+    public <T extends AbstractAggregate<T>> AggregateDiff(T currentVersion, DiffEngine engine) {
+        this.currentVersion = currentVersion;
+        this.engine = engine;
+        this.fieldHashes = currentVersion.fieldHashes();
+        if (fieldHashes != null) {
+            this.oldSource = currentVersion;
+            return;
+        }
+        this.oldVersion = currentVersion.getOld();
+        if (engine == DiffEngine.JAVERS) {
+            this.diff = javers.compare(oldVersion, currentVersion);
+        }
+    }
+    
+    private Object oldVersion() {
+        if (oldSource != null) {
+            oldVersion = oldSource.getOld();
+            oldSource = null;
+        }
+        return oldVersion;
+    }
+    
+    private Diff diff() {
+        if (diff == null) {
+            diff = javers.compare(oldVersion(), currentVersion);
+        }
+        return diff;
+    }
+    
+    private Boolean fingerprintChanged() {
+        if (fieldHashes == null) {
+            return null;
+        }
+        if (!fingerprintCompared) {
+            fingerprintChanged = fieldHashes.changed(currentVersion);
+            fingerprintCompared = true;
+        }
+        return fingerprintChanged;
     }
     
     public boolean hasChanges() {
-        return diff.hasChanges();
+        Boolean changed = fingerprintChanged();
+        if (changed != null) {
+            return changed;
+        }
+        if (engine == DiffEngine.NATIVE) {
+            changed = nativeHasChanges();
+            if (changed != null) {
+                return changed;
+            }
+        }
+        return diff().hasChanges();
+    }
+    
+    /**
+     * 比较根对象的值类型属性，有变化返回 true，存在需要对象图比较的属性时返回 null
+     */
+    private Boolean nativeHasChanges() {
+        Object old = oldVersion();
+        if (old == null || currentVersion == null) {
+            return old != currentVersion;
+        }
+        if (old.getClass() != currentVersion.getClass()) {
+            return null;
+        }
+        boolean graph = false;
+        for (PropertyAccessors.PropertyAccessor accessor : PropertyAccessors.of(currentVersion.getClass()).values()) {
+            if (!accessor.isValue()) {
+                graph = true;
+            } else if (!Objects.equals(accessor.get(old), accessor.get(currentVersion))) {
+                return true;
+            }
+        }
+        return graph ? null : false;
+    }
+    
+    /**
+     * 根对象值类型属性直接比较，返回 null 表示需要 javers 比较
+     */
+    private Boolean nativePropertyHasChange(String propertyName) {
+        Object old = oldVersion();
+        if (old == null || currentVersion == null || old.getClass() != currentVersion.getClass()) {
+            return null;
+        }
+        PropertyAccessors.PropertyAccessor accessor = PropertyAccessors.of(currentVersion.getClass()).get(propertyName);
+        if (accessor == null || !accessor.isValue()) {
+            return null;
+        }
+        return !Objects.equals(accessor.get(old), accessor.get(currentVersion));
     }
     
     public boolean propertyHasChange(String propertyName) {
@@ -104,7 +258,39 @@ public class AggregateDiff {
      * @return true 表示发生了变化
      */
     public boolean propertyHasChange(List<String> propertyNameList) {
-        return propertyNameList.stream().anyMatch(s -> !diff.getPropertyChanges(s).isEmpty());
+        return propertyNameList.stream().anyMatch(this::propertyHasChange0);
+    }
+    
+    /**
+     * 判断 {@link #simpleProperties(Class)} 中的属性是否发生了变化
+     *
+     * @return true 表示发生了变化
+     */
+    public boolean simplePropertiesHasChange() {
+        Object version = currentVersion != null ? currentVersion : oldVersion();
+        return version != null && propertyHasChange(simpleProperties(version.getClass()));
+    }
+    
+    /**
+     * NATIVE 引擎只比较根对象上的值类型属性；javers 会匹配对象图中任意层级的同名属性
+     */
+    private boolean propertyHasChange0(String propertyName) {
+        if (Boolean.FALSE.equals(fingerprintChanged())) {
+            return false;
+        }
+        if (fieldHashes != null && PropertyAccessors.rootOnly(currentVersion.getClass(), propertyName)) {
+            Boolean changed = fieldHashes.propertyChanged(currentVersion, propertyName);
+            if (changed != null) {
+                return changed;
+            }
+        }
+        if (engine == DiffEngine.NATIVE) {
+            Boolean changed = nativePropertyHasChange(propertyName);
+            if (changed != null) {
+                return changed;
+            }
+        }
+        return !diff().getPropertyChanges(propertyName).isEmpty();
     }
     
     /**
@@ -117,7 +303,7 @@ public class AggregateDiff {
      */
     @SafeVarargs
     public final <T, R> boolean propertyHasChange(PropertyFunc<T, R>... function) {
-        return Arrays.stream(function).anyMatch(s -> !diff.getPropertyChanges(ReflectionUtils.getFieldName(s)).isEmpty());
+        return propertyHasChange(ReflectionUtils.getFieldNames(function));
     }
     
     /**
@@ -132,7 +318,7 @@ public class AggregateDiff {
                                          Consumer<T> updateConsume,
                                          Consumer<T> deleteConsume,
                                          Class<T> clazz) {
-        Changes changes = this.diff.getChanges();
+        Changes changes = diff().getChanges();
         for (Change change : changes) {
             if ((change instanceof NewObject && Objects.nonNull(addConsume))) {
                 change.getAffectedObject().ifPresent(item -> addConsume.accept((T) item));
@@ -149,6 +335,26 @@ public class AggregateDiff {
         }
     }
     
+    /**
+     * 遍历一次 diff，把新增、删除、属性变化事件推送给 sink
+     * <p>
+     * NATIVE 引擎下根对象只有值类型属性时直接比较属性，不构建 javers diff
+     *
+     * @param sink 变化接收者
+     */
+    public void changes(AggregateChangeSink sink) {
+        if (Boolean.FALSE.equals(fingerprintChanged())) {
+            return;
+        }
+        Object old = oldVersion();
+        if (engine == DiffEngine.NATIVE && old != null && currentVersion != null && old.getClass() == currentVersion.getClass()
+                && PropertyAccessors.of(currentVersion.getClass()).values().stream().allMatch(PropertyAccessors.PropertyAccessor::isValue)) {
+            emitEntityChanges(currentVersion.getClass(), old, currentVersion, sink);
+            return;
+        }
+        emitChanges(diff().getChanges(), sink, false);
+    }
+    
     /**
      * @param oldList       旧list
      * @param newList       新list
@@ -198,6 +404,180 @@ public class AggregateDiff {
         }
     }
     
+    /**
+     * 指定 diff 引擎的 list 比较
+     * <p>
+     * NATIVE 引擎按 {@link Id} 属性把旧 list 建成哈希索引，再遍历一次新 list，时间复杂度 O(n)，适合几千行的大 list。
+     * id 只存在于新 list 的为新增，只存在于旧 list 的为删除，两边都存在且属性不同的为修改。
+     * 值类型属性直接比较，其他属性引用不同时才用 javers 比较该元素；要求 list 中的 id 不重复
+     *
+     * @param oldList       旧list
+     * @param newList       新list
+     * @param clazz         class
+     * @param engine        diff 引擎
+     * @param addConsume    新增
+     * @param updateConsume 修改
+     * @param removeConsume 删除
+     * @param <T>
+     */
+    public static <T> void listChangeFunction(List<T> oldList,
+                                              List<T> newList,
+                                              Class<T> clazz,
+                                              DiffEngine engine,
+                                              Consumer<List<T>> addConsume,
+                                              Consumer<List<T>> updateConsume,
+                                              Consumer<List<T>> removeConsume) {
+        if (engine == DiffEngine.JAVERS) {
+            listChangeFunction(oldList, newList, clazz, addConsume, updateConsume, removeConsume);
+            return;
+        }
+        List<T> addList = new ArrayList<>();
+        List<T> updateList = new ArrayList<>();
+        List<T> removeList = new ArrayList<>();
+        matchById(oldList, newList, clazz, addList::add, (old, item) -> {
+            if (entityChanged(clazz, old, item)) {
+                updateList.add(item);
+            }
+        }, removeList::add);
+        
+        if (DataUtils.isAllNotNull(addList, addConsume)) {
+            addConsume.accept(addList);
+        }
+        if (DataUtils.isAllNotNull(updateList, updateConsume)) {
+            updateConsume.accept(updateList);
+        }
+        if (DataUtils.isAllNotNull(removeList, removeConsume)) {
+            removeConsume.accept(removeList);
+        }
+    }
+    
+    /**
+     * 流式 collection 比较，只遍历一次，每个变化直接回调 sink，不汇总成 map
+     * <p>
+     * NATIVE 引擎按 id 哈希匹配新旧元素，值类型属性逐个比较后回调 propertyChanged，
+     * 其他属性引用不同时该元素交给 javers 比较
+     *
+     * @param oldList 旧collection
+     * @param newList 新collection
+     * @param clazz   class
+     * @param engine  diff 引擎
+     * @param sink    变化接收者
+     * @param <T>
+     */
+    public static <T> void collectionChanges(Collection<T> oldList,
+                                             Collection<T> newList,
+                                             Class<T> clazz,
+                                             DiffEngine engine,
+                                             AggregateChangeSink sink) {
+        if (engine == DiffEngine.JAVERS) {
+            if (newList != null) {
+                initNegativeId(clazz, newList);
+            }
+            emitChanges(javers.compareCollections(oldList, newList, clazz).getChanges(), sink, true);
+            return;
+        }
+        matchById(oldList, newList, clazz, sink::added, (old, item) -> emitEntityChanges(clazz, old, item, sink), sink::removed);
+    }
+    
+    /**
+     * 按 id 建立旧 collection 的哈希索引，遍历一次新 collection 完成匹配
+     */
+    private static <T> void matchById(Collection<T> oldList,
+                                      Collection<T> newList,
+                                      Class<T> clazz,
+                                      Consumer<T> added,
+                                      BiConsumer<T, T> matched,
+                                      Consumer<T> removed) {
+        PropertyAccessors.PropertyAccessor idAccessor = PropertyAccessors.idOf(clazz);
+        if (idAccessor == null) {
+            throw new IllegalArgumentException(clazz.getName() + " has no @Id property");
+        }
+        Collection<T> oldItems = oldList == null ? Collections.emptyList() : oldList;
+        Collection<T> newItems = newList == null ? Collections.emptyList() : newList;
+        initNegativeId(clazz, newItems);
+        
+        Map<Object, T> oldIndex = new LinkedHashMap<>(Math.max(16, (int) (oldItems.size() / 0.75f) + 1));
+        for (T item : oldItems) {
+            Object id = idAccessor.get(item);
+            if (id == null) {
+                removed.accept(item);
+            } else {
+                oldIndex.put(id, item);
+            }
+        }
+        for (T item : newItems) {
+            Object id = idAccessor.get(item);
+            T old = id == null ? null : oldIndex.remove(id);
+            if (old == null) {
+                added.accept(item);
+            } else {
+                matched.accept(old, item);
+            }
+        }
+        oldIndex.values().forEach(removed);
+    }
+    
+    private static boolean entityChanged(Class<?> clazz, Object old, Object current) {
+        for (PropertyAccessors.PropertyAccessor accessor : PropertyAccessors.of(clazz).values()) {
+            Object oldValue = accessor.get(old);
+            Object currentValue = accessor.get(current);
+            if (accessor.isValue()) {
+                if (!Objects.equals(oldValue, currentValue)) {
+                    return true;
+                }
+            } else if (oldValue != currentValue) {
+                return javers.compare(old, current).hasChanges();
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 只有值类型属性不同时直接回调，否则交给 javers 比较整个元素
+     */
+    private static void emitEntityChanges(Class<?> clazz, Object old, Object current, AggregateChangeSink sink) {
+        Map<String, PropertyAccessors.PropertyAccessor> accessors = PropertyAccessors.of(clazz);
+        for (PropertyAccessors.PropertyAccessor accessor : accessors.values()) {
+            if (!accessor.isValue() && accessor.get(old) != accessor.get(current)) {
+                emitChanges(javers.compare(old, current).getChanges(), sink, false);
+                return;
+            }
+        }
+        for (Map.Entry<String, PropertyAccessors.PropertyAccessor> entry : accessors.entrySet()) {
+            PropertyAccessors.PropertyAccessor accessor = entry.getValue();
+            if (!accessor.isValue()) {
+                continue;
+            }
+            Object oldValue = accessor.get(old);
+            Object currentValue = accessor.get(current);
+            if (!Objects.equals(oldValue, currentValue)) {
+                sink.propertyChanged(current, entry.getKey(), oldValue, currentValue);
+            }
+        }
+    }
+    
+    /**
+     * javers 变化转换为事件，新增和删除对象的初始值、终止值变化不回调
+     *
+     * @param collection compareCollections 的结果，忽略 javers 包装 collection 的根对象变化
+     */
+    private static void emitChanges(List<Change> changes, AggregateChangeSink sink, boolean collection) {
+        for (Change change : changes) {
+            if (collection && change.getAffectedGlobalId() instanceof UnboundedValueObjectId) {
+                continue;
+            }
+            Object object = change.getAffectedObject().orElse(null);
+            if (change instanceof NewObject) {
+                sink.added(object);
+            } else if (change instanceof ObjectRemoved) {
+                sink.removed(object);
+            } else if (change instanceof PropertyChange && !(change instanceof InitialValueChange) && !(change instanceof TerminalValueChange)) {
+                PropertyChange<?> propertyChange = (PropertyChange<?>) change;
+                sink.propertyChanged(object, propertyChange.getPropertyName(), propertyChange.getLeft(), propertyChange.getRight());
+            }
+        }
+    }
+    
     /**
      * id初始化负数
      *
@@ -207,11 +587,16 @@ public class AggregateDiff {
      */
     public static <T> void initNegativeId(Class<T> clazz, Collection<T> list, String fileName) {
         // 检查是否有id 属性
-        if (ReflectionUtils.isExistFieldName(fileName, clazz, Id.class)) {
-            for (T t : list) {
-                Object id = ReflectionUtils.getPropertyValue(t, fileName);
-                if (DataUtils.isEmpty(id)) {
-                    ReflectionUtils.setPropertyValue(t, fileName, DataUtils.randomLongId());
+        FieldAccessor accessor = FieldAccessor.of(clazz, fileName);
+        if (accessor == null || !accessor.isAnnotationPresent(Id.class)) {
+            return;
+        }
+        for (T t : list) {
+            if (DataUtils.isEmpty(accessor.get(t))) {
+                try {
+                    accessor.set(t, DataUtils.randomLongId());
+                } catch (RuntimeException e) {
+                    log.error("initNegativeId exception", e);
                 }
             }
         }
@@ -232,43 +617,223 @@ public class AggregateDiff {
      * @param removeConsume
      * @param <T>
      */
-    @SuppressWarnings("unchecked")
     public static <T> void collectionChangeFunction(Collection<T> oldList,
                                                     Collection<T> newList,
                                                     Class<T> clazz,
                                                     Consumer<Map<String, T>> addConsume,
                                                     Consumer<Map<String, T>> updateConsume,
                                                     Consumer<Map<String, T>> removeConsume) {
+        PartitionChanges<T> changes = new PartitionChanges<>();
+        changes.javersDiff(oldList, newList, clazz);
+        changes.accept(addConsume, updateConsume, removeConsume);
+    }
+    
+    /**
+     * 并行 collection 比较，使用 {@link ForkJoinPool#commonPool()} 与 javers 引擎
+     *
+     * @see #collectionChangeFunction(Collection, Collection, Class, DiffEngine, Executor, Consumer, Consumer, Consumer)
+     */
+    public static <T> void parallelCollectionChangeFunction(Collection<T> oldList,
+                                                            Collection<T> newList,
+                                                            Class<T> clazz,
+                                                            Consumer<Map<String, T>> addConsume,
+                                                            Consumer<Map<String, T>> updateConsume,
+                                                            Consumer<Map<String, T>> removeConsume) {
+        collectionChangeFunction(oldList, newList, clazz, ForkJoinPool.commonPool(), addConsume, updateConsume, removeConsume);
+    }
+    
+    /**
+     * 使用 javers 引擎的并行 collection 比较，结果与 {@link #collectionChangeFunction(Collection, Collection, Class, Consumer, Consumer, Consumer)} 一致
+     *
+     * @see #collectionChangeFunction(Collection, Collection, Class, DiffEngine, Executor, Consumer, Consumer, Consumer)
+     */
+    public static <T> void collectionChangeFunction(Collection<T> oldList,
+                                                    Collection<T> newList,
+                                                    Class<T> clazz,
+                                                    Executor executor,
+                                                    Consumer<Map<String, T>> addConsume,
+                                                    Consumer<Map<String, T>> updateConsume,
+                                                    Consumer<Map<String, T>> removeConsume) {
+        collectionChangeFunction(oldList, newList, clazz, DiffEngine.JAVERS, executor, addConsume, updateConsume, removeConsume);
+    }
+    
+    /**
+     * 并行 collection 比较，map 的 key 是 id 的 toString
+     * <p>
+     * 新旧 collection 按 id 哈希分成 cpu 核数个分区，每个分区在 executor 中用指定引擎独立比较后合并结果，
+     * javers 按 id 匹配实体，同一 id 总在同一分区，结果与顺序比较一致。
+     * 新旧 collection 都少于 {@link #PARALLEL_THRESHOLD} 个元素时分区和线程切换的开销大于收益，直接在调用线程中比较。
+     * executor 可以使用 {@link ThreadPoolBuilder#cpuThreadPoolBuilder()} 构建的线程池，比较期间调用线程阻塞等待
+     * <p>
+     * 不修改传入的元素：id 为空的新元素视为新增，旧元素视为删除，key 为随机负数 id
+     *
+     * @param oldList       旧collection
+     * @param newList       新collection
+     * @param clazz         class
+     * @param engine        diff 引擎
+     * @param executor      执行分区比较的线程池
+     * @param addConsume    新增
+     * @param updateConsume 修改
+     * @param removeConsume 删除
+     * @param <T>
+     */
+    public static <T> void collectionChangeFunction(Collection<T> oldList,
+                                                    Collection<T> newList,
+                                                    Class<T> clazz,
+                                                    DiffEngine engine,
+                                                    Executor executor,
+                                                    Consumer<Map<String, T>> addConsume,
+                                                    Consumer<Map<String, T>> updateConsume,
+                                                    Consumer<Map<String, T>> removeConsume) {
+        collectionChangeFunction(oldList, newList, clazz, engine, executor, PARALLEL_THRESHOLD, addConsume, updateConsume, removeConsume);
+    }
+    
+    /**
+     * @param parallelThreshold 并行比较的元素数量阈值
+     */
+    static <T> void collectionChangeFunction(Collection<T> oldList,
+                                             Collection<T> newList,
+                                             Class<T> clazz,
+                                             DiffEngine engine,
+                                             Executor executor,
+                                             int parallelThreshold,
+                                             Consumer<Map<String, T>> addConsume,
+                                             Consumer<Map<String, T>> updateConsume,
+                                             Consumer<Map<String, T>> removeConsume) {
+        PropertyAccessors.PropertyAccessor idAccessor = PropertyAccessors.idOf(clazz);
+        if (idAccessor == null) {
+            throw new IllegalArgumentException(clazz.getName() + " has no @Id property");
+        }
+        PartitionChanges<T> changes = new PartitionChanges<>();
+        List<T> oldItems = withId(oldList, idAccessor, item -> changes.removeMap.put(String.valueOf(DataUtils.randomLongId()), item));
+        List<T> newItems = withId(newList, idAccessor, item -> changes.addMap.put(String.valueOf(DataUtils.randomLongId()), item));
         
-        Diff listDiff = javers.compareCollections(oldList, newList, clazz);
+        if (Math.max(oldItems.size(), newItems.size()) < parallelThreshold) {
+            changes.diff(oldItems, newItems, clazz, engine);
+        } else {
+            changes.merge(parallelDiff(oldItems, newItems, clazz, engine, idAccessor, executor));
+        }
+        changes.accept(addConsume, updateConsume, removeConsume);
+    }
+    
+    /**
+     * @param withoutId 接收 id 为空的元素
+     * @return id 不为空的元素
+     */
+    private static <T> List<T> withId(Collection<T> items, PropertyAccessors.PropertyAccessor idAccessor, Consumer<T> withoutId) {
+        if (items == null) {
+            return Collections.emptyList();
+        }
+        List<T> result = new ArrayList<>(items.size());
+        for (T item : items) {
+            if (DataUtils.isEmpty(idAccessor.get(item))) {
+                withoutId.accept(item);
+            } else {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+    
+    private static <T> PartitionChanges<T> parallelDiff(List<T> oldItems, List<T> newItems, Class<T> clazz, DiffEngine engine,
+                                                        PropertyAccessors.PropertyAccessor idAccessor, Executor executor) {
+        int partitions = SystemUtil.getCPU();
+        List<List<T>> oldPartitions = partition(oldItems, idAccessor, partitions);
+        List<List<T>> newPartitions = partition(newItems, idAccessor, partitions);
+        List<CompletableFuture<PartitionChanges<T>>> futures = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            List<T> oldPartition = oldPartitions.get(i);
+            List<T> newPartition = newPartitions.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                PartitionChanges<T> changes = new PartitionChanges<>();
+                changes.diff(oldPartition, newPartition, clazz, engine);
+                return changes;
+            }, executor));
+        }
+        PartitionChanges<T> merged = new PartitionChanges<>();
+        for (CompletableFuture<PartitionChanges<T>> future : futures) {
+            merged.merge(future.join());
+        }
+        return merged;
+    }
+    
+    private static <T> List<List<T>> partition(Collection<T> items, PropertyAccessors.PropertyAccessor idAccessor, int partitions) {
+        List<List<T>> result = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            result.add(new ArrayList<>(items.size() / partitions + 1));
+        }
+        for (T item : items) {
+            result.get(Math.floorMod(Objects.hashCode(idAccessor.get(item)), partitions)).add(item);
+        }
+        return result;
+    }
+    
+    /**
+     * 一个分区的比较结果
+     */
+    private static final class PartitionChanges<T> {
         
-        Map<String, T> addMap = new HashMap<>();
-        Map<String, T> removeMap = new HashMap<>();
-        Map<String, T> updateMap = new HashMap<>();
+        private final Map<String, T> addMap = new HashMap<>();
         
-        for (Change change : listDiff.getChanges()) {
-            if ((change instanceof NewObject)) {
-                addMap.put(change.getAffectedLocalId().toString(), (T) change.getAffectedObject().get());
-            }
-            
-            if ((change instanceof ObjectRemoved)) {
-                removeMap.put(change.getAffectedLocalId().toString(), (T) change.getAffectedObject().get());
+        private final Map<String, T> updateMap = new HashMap<>();
+        
+        private final Map<String, T> removeMap = new HashMap<>();
+        
+        /**
+         * 元素的 id 都不为 null
+         */
+        void diff(Collection<T> oldItems, Collection<T> newItems, Class<T> clazz, DiffEngine engine) {
+            if (engine == DiffEngine.JAVERS) {
+                javersDiff(oldItems, newItems, clazz);
+                return;
             }
-            
-            if ((change instanceof PropertyChange)) {
-                if (change.getAffectedLocalId() != null) {
-                    updateMap.put(change.getAffectedLocalId().toString(), (T) change.getAffectedObject().get());
+            PropertyAccessors.PropertyAccessor idAccessor = PropertyAccessors.idOf(clazz);
+            matchById(oldItems, newItems, clazz, item -> addMap.put(key(idAccessor, item), item), (old, item) -> {
+                if (entityChanged(clazz, old, item)) {
+                    updateMap.put(key(idAccessor, item), item);
+                }
+            }, item -> removeMap.put(key(idAccessor, item), item));
+        }
+        
+        @SuppressWarnings("unchecked")
+        void javersDiff(Collection<T> oldItems, Collection<T> newItems, Class<T> clazz) {
+            for (Change change : javers.compareCollections(oldItems, newItems, clazz).getChanges()) {
+                if ((change instanceof NewObject)) {
+                    addMap.put(change.getAffectedLocalId().toString(), (T) change.getAffectedObject().get());
+                }
+                
+                if ((change instanceof ObjectRemoved)) {
+                    removeMap.put(change.getAffectedLocalId().toString(), (T) change.getAffectedObject().get());
+                }
+                
+                if ((change instanceof PropertyChange)) {
+                    if (change.getAffectedLocalId() != null) {
+                        updateMap.put(change.getAffectedLocalId().toString(), (T) change.getAffectedObject().get());
+                    }
                 }
             }
         }
-        if (!addMap.isEmpty()) {
-            addConsume.accept(addMap);
+        
+        void merge(PartitionChanges<T> changes) {
+            addMap.putAll(changes.addMap);
+            updateMap.putAll(changes.updateMap);
+            removeMap.putAll(changes.removeMap);
         }
-        if (!updateMap.isEmpty()) {
-            updateConsume.accept(updateMap);
+        
+        void accept(Consumer<Map<String, T>> addConsume, Consumer<Map<String, T>> updateConsume, Consumer<Map<String, T>> removeConsume) {
+            if (!addMap.isEmpty()) {
+                addConsume.accept(addMap);
+            }
+            if (!updateMap.isEmpty()) {
+                updateConsume.accept(updateMap);
+            }
+            if (!removeMap.isEmpty()) {
+                removeConsume.accept(removeMap);
+            }
         }
-        if (!removeMap.isEmpty()) {
-            removeConsume.accept(removeMap);
+        
+        private static String key(PropertyAccessors.PropertyAccessor idAccessor, Object item) {
+            return String.valueOf(idAccessor.get(item));
         }
     }
     
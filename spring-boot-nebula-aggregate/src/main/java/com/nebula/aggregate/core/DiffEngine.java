@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.aggregate.core;
+
+/**
+ * @author : wh
+ * @date : 2024/10/10 10:30
+ * @description: diff 引擎
+ */
+public enum DiffEngine {
+    
+    /**
+     * 构造时使用 javers 比较整个对象图
+     */
+    JAVERS,
+    
+    /**
+     * 值类型属性通过缓存的字段访问器直接比较，只在需要比较对象图时才使用 javers
+     */
+    NATIVE
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.aggregate.core;
+
+import com.nebula.aggregate.snapshot.ValueTypes;
+import com.nebula.base.utils.FieldAccessor;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.javers.core.metamodel.annotation.DiffIgnore;
+import org.javers.core.metamodel.annotation.Id;
+
+/**
+ * 按类缓存的属性访问器，属性名与 javers 默认的字段映射一致，基于 {@link FieldAccessor}，排除 {@link DiffIgnore} 与 transient 字段
+ *
+ * @author : wh
+ * @date : 2024/10/10 10:40
+ * @description:
+ */
+final class PropertyAccessors {
+    
+    private static final ClassValue<Map<String, PropertyAccessor>> ACCESSORS = new ClassValue<>() {
+        
+        @Override
+        protected Map<String, PropertyAccessor> computeValue(Class<?> type) {
+            return createAccessors(type);
+        }
+    };
+    
+    private static final ClassValue<Optional<Set<String>>> NESTED_PROPERTIES = new ClassValue<>() {
+        
+        @Override
+        protected Optional<Set<String>> computeValue(Class<?> type) {
+            return Optional.ofNullable(scanNestedProperties(type));
+        }
+    };
+    
+    private PropertyAccessors() {
+    }
+    
+    /**
+     * 获取类的全部属性访问器
+     */
+    static Map<String, PropertyAccessor> of(Class<?> type) {
+        return ACCESSORS.get(type);
+    }
+    
+    /**
+     * 获取 {@link Id} 标注的属性访问器，没有标注时使用名为 id 的属性
+     *
+     * @return 不存在时返回 null
+     */
+    static PropertyAccessor idOf(Class<?> type) {
+        Map<String, PropertyAccessor> accessors = of(type);
+        for (PropertyAccessor accessor : accessors.values()) {
+            if (accessor.isId()) {
+                return accessor;
+            }
+        }
+        return accessors.get("id");
+    }
+    
+    /**
+     * 判断属性是否只存在于根对象上，javers 按属性名匹配对象图中任意层级的同名属性
+     * <p>
+     * 按字段声明类型静态分析，声明类型为接口、抽象类、Object 或泛型变量时无法确定，返回 false
+     */
+    static boolean rootOnly(Class<?> type, String propertyName) {
+        Optional<Set<String>> nested = NESTED_PROPERTIES.get(type);
+        return nested.isPresent() && !nested.get().contains(propertyName);
+    }
+    
+    /**
+     * @return 根对象字段可达的嵌套类型上的全部属性名，无法确定时返回 null
+     */
+    private static Set<String> scanNestedProperties(Class<?> root) {
+        Set<String> names = new HashSet<>();
+        Set<Class<?>> visited = new HashSet<>();
+        for (PropertyAccessor accessor : of(root).values()) {
+            if (!scanType(accessor.accessor.getField().getGenericType(), names, visited)) {
+                return null;
+            }
+        }
+        return names;
+    }
+    
+    private static boolean scanType(Type type, Set<String> names, Set<Class<?>> visited) {
+        if (type instanceof GenericArrayType) {
+            return scanType(((GenericArrayType) type).getGenericComponentType(), names, visited);
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            Class<?> raw = (Class<?>) parameterizedType.getRawType();
+            if (!isContainer(raw) && !scanType(raw, names, visited)) {
+                return false;
+            }
+            for (Type argument : parameterizedType.getActualTypeArguments()) {
+                if (!scanType(argument, names, visited)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (!(type instanceof Class)) {
+            // 泛型变量、通配符
+            return false;
+        }
+        Class<?> clazz = (Class<?>) type;
+        if (clazz.isArray()) {
+            return scanType(clazz.getComponentType(), names, visited);
+        }
+        if (ValueTypes.isValue(clazz) || clazz.isAnnotationPresent(DiffIgnore.class)) {
+            return true;
+        }
+        if (isContainer(clazz) || clazz == Object.class || clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers())) {
+            // 元素类型或实际类型未知
+            return false;
+        }
+        if (ValueTypes.isJdkType(clazz) || !visited.add(clazz)) {
+            return true;
+        }
+        for (PropertyAccessor accessor : of(clazz).values()) {
+            names.add(accessor.accessor.getName());
+            if (!scanType(accessor.accessor.getField().getGenericType(), names, visited)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isContainer(Class<?> type) {
+        return Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type) || Optional.class == type;
+    }
+    
+    private static Map<String, PropertyAccessor> createAccessors(Class<?> type) {
+        Map<String, PropertyAccessor> accessors = new LinkedHashMap<>();
+        for (FieldAccessor accessor : FieldAccessor.forClass(type).values()) {
+            // javers 不比较 transient 字段
+            if (!accessor.isAnnotationPresent(DiffIgnore.class) && !Modifier.isTransient(accessor.getField().getModifiers())) {
+                accessors.put(accessor.getName(), new PropertyAccessor(accessor));
+            }
+        }
+        return Collections.unmodifiableMap(accessors);
+    }
+    
+    /**
+     * 属性访问器
+     */
+    static final class PropertyAccessor {
+        
+        private final FieldAccessor accessor;
+        
+        /**
+         * 声明类型为值类型时可以直接 equals 比较
+         */
+        private final boolean value;
+        
+        private final boolean id;
+        
+        PropertyAccessor(FieldAccessor accessor) {
+            this.accessor = accessor;
+            this.value = ValueTypes.isValue(accessor.getType());
+            this.id = accessor.isAnnotationPresent(Id.class);
+        }
+        
+        boolean isValue() {
+            return value;
+        }
+        
+        boolean isId() {
+            return id;
+        }
+        
+        Object get(Object target) {
+            return accessor.get(target);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.aggregate.snapshot;
+
+import com.nebula.base.utils.JsonUtil;
+
+/**
+ * 通过 json 序列化再反序列化拷贝对象，兼容性最好但开销较大
+ *
+ * @author : wh
+ * @date : 2024/10/8 10:10
+ * @description:
+ */
+public class JsonSnapshotStrategy implements SnapshotStrategy {
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T snapshot(T source) {
+        if (source == null) {
+            return null;
+        }
+        return (T) JsonUtil.json2JavaBean(JsonUtil.toJSONString(source), source.getClass());
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.aggregate.snapshot;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import org.javers.core.metamodel.annotation.DiffIgnore;
+
+/**
+ * 基于反射的深拷贝，每个类的拷贝计划只解析一次并缓存
+ * <p>
+ * 不可变类型直接复用引用；集合、Map、数组按元素深拷贝；普通对象通过无参构造器创建并逐字段拷贝，
+ * 标注 {@link DiffIgnore} 的字段和类型不拷贝；同一对象在副本中只拷贝一次，支持循环引用。
+ * 无法反射拷贝的类型（无无参构造器、JDK内部类型）交给 fallback 策略处理
+ *
+ * @author : wh
+ * @date : 2024/10/8 10:30
+ * @description:
+ */
+public class ReflectiveSnapshotStrategy implements SnapshotStrategy {
+    
+    private static final CopyPlan IMMUTABLE = (source, copied) -> source;
+    
+    private final SnapshotStrategy fallback;
+    
+    private final ClassValue<CopyPlan> plans = new ClassValue<>() {
+        
+        @Override
+        protected CopyPlan computeValue(Class<?> type) {
+            return createPlan(type);
+        }
+    };
+    
+    public ReflectiveSnapshotStrategy() {
+        this(new JsonSnapshotStrategy());
+    }
+    
+    public ReflectiveSnapshotStrategy(SnapshotStrategy fallback) {
+        this.fallback = fallback;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T snapshot(T source) {
+        return (T) copy(source, new IdentityHashMap<>());
+    }
+    
+    private Object copy(Object source, Map<Object, Object> copied) {
+        if (source == null) {
+            return null;
+        }
+        CopyPlan plan = plans.get(source.getClass());
+        if (plan == IMMUTABLE) {
+            return source;
+        }
+        Object target = copied.get(source);
+        if (target != null) {
+            return target;
+        }
+        return plan.copy(source, copied);
+    }
+    
+    private CopyPlan createPlan(Class<?> type) {
+        if (ValueTypes.isImmutable(type)) {
+            return IMMUTABLE;
+        }
+        if (type.isArray()) {
+            return arrayPlan(type.getComponentType());
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            return (source, copied) -> put(copied, source, ((Date) source).clone());
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return collectionPlan(type);
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return mapPlan(type);
+        }
+        if (ValueTypes.isJdkType(type) || type.isAnnotationPresent(DiffIgnore.class)) {
+            return fallbackPlan();
+        }
+        return beanPlan(type);
+    }
+    
+    private CopyPlan fallbackPlan() {
+        return (source, copied) -> put(copied, source, fallback.snapshot(source));
+    }
+    
+    private CopyPlan arrayPlan(Class<?> componentType) {
+        if (componentType.isPrimitive()) {
+            return (source, copied) -> {
+                int length = Array.getLength(source);
+                Object target = Array.newInstance(componentType, length);
+                System.arraycopy(source, 0, target, 0, length);
+                return put(copied, source, target);
+            };
+        }
+        return (source, copied) -> {
+            Object[] array = (Object[]) source;
+            Object[] target = (Object[]) Array.newInstance(componentType, array.length);
+            copied.put(source, target);
+            for (int i = 0; i < array.length; i++) {
+                target[i] = copy(array[i], copied);
+            }
+            return target;
+        };
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private CopyPlan collectionPlan(Class<?> type) {
+        if (EnumSet.class.isAssignableFrom(type)) {
+            return (source, copied) -> put(copied, source, ((EnumSet) source).clone());
+        }
+        Function<Collection<Object>, Collection<Object>> factory;
+        Constructor<?> constructor = jdkNoArgConstructor(type);
+        if (SortedSet.class.isAssignableFrom(type)) {
+            factory = source -> new TreeSet<>(((SortedSet<Object>) source).comparator());
+        } else if (constructor != null) {
+            factory = source -> (Collection<Object>) newInstance(constructor);
+        } else if (Set.class.isAssignableFrom(type)) {
+            factory = source -> new LinkedHashSet<>();
+        } else {
+            factory = source -> new ArrayList<>(source.size());
+        }
+        return (source, copied) -> {
+            Collection<Object> collection = (Collection<Object>) source;
+            Collection<Object> target = factory.apply(collection);
+            copied.put(source, target);
+            for (Object element : collection) {
+                target.add(copy(element, copied));
+            }
+            return target;
+        };
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private CopyPlan mapPlan(Class<?> type) {
+        Function<Map<Object, Object>, Map<Object, Object>> factory;
+        Constructor<?> constructor = jdkNoArgConstructor(type);
+        if (EnumMap.class.isAssignableFrom(type)) {
+            factory = source -> {
+                EnumMap target = new EnumMap((EnumMap) source);
+                target.clear();
+                return target;
+            };
+        } else if (SortedMap.class.isAssignableFrom(type)) {
+            factory = source -> new TreeMap<>(((SortedMap<Object, Object>) source).comparator());
+        } else if (constructor != null) {
+            factory = source -> (Map<Object, Object>) newInstance(constructor);
+        } else {
+            factory = source -> new LinkedHashMap<>();
+        }
+        return (source, copied) -> {
+            Map<Object, Object> map = (Map<Object, Object>) source;
+            Map<Object, Object> target = factory.apply(map);
+            copied.put(source, target);
+            for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                target.put(copy(entry.getKey(), copied), copy(entry.getValue(), copied));
+            }
+            return target;
+        };
+    }
+    
+    /**
+     * java.util 下有公开无参构造器的集合保持原类型，其余按接口降级为常用实现
+     */
+    private static Constructor<?> jdkNoArgConstructor(Class<?> type) {
+        if (!Modifier.isPublic(type.getModifiers()) || !type.getName().startsWith("java.util.")) {
+            return null;
+        }
+        try {
+            return type.getConstructor();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+    
+    private CopyPlan beanPlan(Class<?> type) {
+        if (Modifier.isAbstract(type.getModifiers())) {
+            return fallbackPlan();
+        }
+        Constructor<?> constructor;
+        try {
+            constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException | RuntimeException e) {
+            return fallbackPlan();
+        }
+        List<FieldCopier> fieldCopiers = new ArrayList<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isAnnotationPresent(DiffIgnore.class)
+                        || field.getType().isAnnotationPresent(DiffIgnore.class)) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                } catch (RuntimeException e) {
+                    return fallbackPlan();
+                }
+                fieldCopiers.add(fieldCopier(field));
+            }
+        }
+        FieldCopier[] copiers = fieldCopiers.toArray(new FieldCopier[0]);
+        return (source, copied) -> {
+            Object target = newInstance(constructor);
+            copied.put(source, target);
+            try {
+                for (FieldCopier copier : copiers) {
+                    copier.copy(source, target, copied);
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("snapshot fail " + type.getName(), e);
+            }
+            return target;
+        };
+    }
+    
+    /**
+     * 基本类型与不可变类型的字段直接赋值，不进入递归
+     */
+    private FieldCopier fieldCopier(Field field) {
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            return (source, target, copied) -> field.setInt(target, field.getInt(source));
+        }
+        if (type == long.class) {
+            return (source, target, copied) -> field.setLong(target, field.getLong(source));
+        }
+        if (type == boolean.class) {
+            return (source, target, copied) -> field.setBoolean(target, field.getBoolean(source));
+        }
+        if (type == double.class) {
+            return (source, target, copied) -> field.setDouble(target, field.getDouble(source));
+        }
+        if (type.isPrimitive() || field.isSynthetic() || (Modifier.isFinal(type.getModifiers()) && ValueTypes.isImmutable(type)) || type.isEnum()) {
+            return (source, target, copied) -> field.set(target, field.get(source));
+        }
+        return (source, target, copied) -> field.set(target, copy(field.get(source), copied));
+    }
+    
+    private static Object newInstance(Constructor<?> constructor) {
+        try {
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("snapshot fail " + constructor.getDeclaringClass().getName(), e);
+        }
+    }
+    
+    private static Object put(Map<Object, Object> copied, Object source, Object target) {
+        copied.put(source, target);
+        return target;
+    }
+    
+    /**
+     * 类型的拷贝计划
+     */
+    @FunctionalInterface
+    private interface CopyPlan {
+        
+        Object copy(Object source, Map<Object, Object> copied);
+    }
+    
+    @FunctionalInterface
+    private interface FieldCopier {
+        
+        void copy(Object source, Object target, Map<Object, Object> copied) throws IllegalAccessException;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.aggregate.snapshot;
+
+/**
+ * 聚合根快照策略，用于 {@link com.nebula.aggregate.annotation.CreateOldObjAspect} 生成 diff 用的旧对象
+ *
+ * @author : wh
+ * @date : 2024/10/8 10:05
+ * @description:
+ */
+public interface SnapshotStrategy {
+    
+    /**
+     * 深拷贝对象
+     *
+     * @param source 原对象
+     * @param <T>    对象类型
+     * @return 与原对象不共享可变状态的副本
+     */
+    <T> T snapshot(T source);
+}
@@ -0,0 +1,418 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.aggregate.snapshot;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.javers.core.metamodel.annotation.DiffIgnore;
+
+/**
+ * 对象结构指纹，按与 {@link ReflectiveSnapshotStrategy} 相同的规则遍历对象图计算64位hash，遍历过程不分配对象副本
+ * <p>
+ * List 与数组按顺序计算，Set 与 Map 与迭代顺序无关；标注 {@link DiffIgnore} 的字段和类型不参与计算；
+ * 值类型按完整内容计算64位摘要（字符串逐字符、数值按二进制位、Date 按毫秒数，其余 JDK 类型按 toString），
+ * 不使用32位 hashCode，避免 "Aa"/"BB"、0L/4294967297L 这类 hashCode 相同的修改被漏掉；
+ * {@link #fieldHashes(Object)} 按根对象字段分别记录，用于快速判断哪些字段发生了变化
+ *
+ * @author : wh
+ * @date : 2024/10/9 10:20
+ * @description:
+ */
+public class StructuralHasher {
+    
+    private static final long NULL_HASH = 0x9E3779B97F4A7C15L;
+    
+    private static final long CYCLE_HASH = 0xC2B2AE3D27D4EB4FL;
+    
+    private final ClassValue<HashPlan> plans = new ClassValue<>() {
+        
+        @Override
+        protected HashPlan computeValue(Class<?> type) {
+            return createPlan(type);
+        }
+    };
+    
+    /**
+     * 计算对象指纹
+     *
+     * @param source 对象
+     * @return 指纹
+     */
+    public long hash(Object source) {
+        return hash(source, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+    
+    private long hash(Object source, Set<Object> visiting) {
+        if (source == null) {
+            return NULL_HASH;
+        }
+        HashPlan plan = plans.get(source.getClass());
+        if (plan instanceof ValueHashPlan) {
+            return plan.hash(source, visiting);
+        }
+        if (!visiting.add(source)) {
+            return CYCLE_HASH;
+        }
+        return plan.hash(source, visiting);
+    }
+    
+    private HashPlan createPlan(Class<?> type) {
+        if (ValueTypes.isImmutable(type) || (ValueTypes.isJdkType(type) && !type.isArray()
+                && !Collection.class.isAssignableFrom(type) && !Map.class.isAssignableFrom(type))) {
+            return valuePlan(type);
+        }
+        if (type.isArray()) {
+            return arrayPlan(type.getComponentType());
+        }
+        if (Set.class.isAssignableFrom(type)) {
+            return (source, visiting) -> {
+                long hash = 0;
+                for (Object element : (Set<?>) source) {
+                    hash += mix(hash(element, visiting));
+                }
+                return hash;
+            };
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return (source, visiting) -> {
+                long hash = 1;
+                for (Object element : (Collection<?>) source) {
+                    hash = combine(hash, hash(element, visiting));
+                }
+                return hash;
+            };
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return (source, visiting) -> {
+                long hash = 0;
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) source).entrySet()) {
+                    hash += mix(combine(hash(entry.getKey(), visiting), hash(entry.getValue(), visiting)));
+                }
+                return hash;
+            };
+        }
+        if (type.isAnnotationPresent(DiffIgnore.class)) {
+            return (ValueHashPlan) (source, visiting) -> 0;
+        }
+        return beanPlan(type);
+    }
+    
+    private HashPlan arrayPlan(Class<?> componentType) {
+        if (componentType.isPrimitive()) {
+            return (ValueHashPlan) (source, visiting) -> primitiveArrayHash(source);
+        }
+        return (source, visiting) -> {
+            long hash = 1;
+            for (Object element : (Object[]) source) {
+                hash = combine(hash, hash(element, visiting));
+            }
+            return hash;
+        };
+    }
+    
+    /**
+     * 值类型按内容计算摘要，类型名作为种子区分 1 与 1L
+     */
+    private static HashPlan valuePlan(Class<?> type) {
+        long seed = stringHash(type.getName());
+        if (type == String.class) {
+            return (ValueHashPlan) (source, visiting) -> combine(seed, stringHash((String) source));
+        }
+        if (type == Long.class || type == Integer.class || type == Short.class || type == Byte.class) {
+            return (ValueHashPlan) (source, visiting) -> combine(seed, ((Number) source).longValue());
+        }
+        if (type == Double.class) {
+            return (ValueHashPlan) (source, visiting) -> combine(seed, Double.doubleToLongBits((Double) source));
+        }
+        if (type == Float.class) {
+            return (ValueHashPlan) (source, visiting) -> combine(seed, Float.floatToIntBits((Float) source));
+        }
+        if (type == Character.class) {
+            return (ValueHashPlan) (source, visiting) -> combine(seed, (Character) source);
+        }
+        if (type == Boolean.class) {
+            return (ValueHashPlan) (source, visiting) -> combine(seed, (Boolean) source ? 1 : 0);
+        }
+        if (type.isEnum() || (type.getSuperclass() != null && type.getSuperclass().isEnum())) {
+            return (ValueHashPlan) (source, visiting) -> combine(seed, stringHash(((Enum<?>) source).name()));
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            // Date.toString 不包含毫秒
+            return (ValueHashPlan) (source, visiting) -> combine(seed, ((Date) source).getTime());
+        }
+        return (ValueHashPlan) (source, visiting) -> combine(seed, stringHash(source.toString()));
+    }
+    
+    private static long stringHash(String value) {
+        long hash = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            hash = combine(hash, value.charAt(i));
+        }
+        return hash;
+    }
+    
+    private static long primitiveArrayHash(Object array) {
+        long hash = stringHash(array.getClass().getName());
+        if (array instanceof int[]) {
+            for (int value : (int[]) array) {
+                hash = combine(hash, value);
+            }
+        } else if (array instanceof long[]) {
+            for (long value : (long[]) array) {
+                hash = combine(hash, value);
+            }
+        } else if (array instanceof byte[]) {
+            for (byte value : (byte[]) array) {
+                hash = combine(hash, value);
+            }
+        } else if (array instanceof char[]) {
+            for (char value : (char[]) array) {
+                hash = combine(hash, value);
+            }
+        } else if (array instanceof double[]) {
+            for (double value : (double[]) array) {
+                hash = combine(hash, Double.doubleToLongBits(value));
+            }
+        } else if (array instanceof float[]) {
+            for (float value : (float[]) array) {
+                hash = combine(hash, Float.floatToIntBits(value));
+            }
+        } else if (array instanceof short[]) {
+            for (short value : (short[]) array) {
+                hash = combine(hash, value);
+            }
+        } else {
+            for (boolean value : (boolean[]) array) {
+                hash = combine(hash, value ? 1 : 0);
+            }
+        }
+        return combine(hash, Array.getLength(array));
+    }
+    
+    private HashPlan beanPlan(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic() || field.isAnnotationPresent(DiffIgnore.class)
+                        || field.getType().isAnnotationPresent(DiffIgnore.class)) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                } catch (RuntimeException e) {
+                    return valuePlan(type);
+                }
+                fields.add(field);
+            }
+        }
+        return new BeanHashPlan(type, fields.toArray(new Field[0]));
+    }
+    
+    /**
+     * 记录根对象每个字段的状态，不可变值类型字段直接保存值，其他字段按与 {@link #hash(Object)} 一致的规则单独计算指纹
+     *
+     * @param source 对象
+     * @return 无法按字段计算的类型（集合、值类型等）返回 null
+     */
+    public FieldHashes fieldHashes(Object source) {
+        HashPlan plan = plans.get(source.getClass());
+        if (!(plan instanceof BeanHashPlan)) {
+            return null;
+        }
+        BeanHashPlan beanPlan = (BeanHashPlan) plan;
+        Object[] values = new Object[beanPlan.fields.length];
+        long[] hashes = new long[beanPlan.fields.length];
+        for (int i = 0; i < hashes.length; i++) {
+            if (beanPlan.ignored[i]) {
+                continue;
+            }
+            if (beanPlan.exact[i]) {
+                values[i] = beanPlan.get(beanPlan.fields[i], source);
+            } else {
+                hashes[i] = beanPlan.fieldHash(source, i);
+            }
+        }
+        return new FieldHashes(beanPlan, values, hashes);
+    }
+    
+    private static long combine(long hash, long value) {
+        return mix(hash * 31 + value);
+    }
+    
+    /**
+     * murmur3 fmix64
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+    
+    /**
+     * 类型的指纹计算计划
+     */
+    @FunctionalInterface
+    private interface HashPlan {
+        
+        long hash(Object source, Set<Object> visiting);
+    }
+    
+    /**
+     * 值类型，不会形成循环引用，无需记录访问
+     */
+    @FunctionalInterface
+    private interface ValueHashPlan extends HashPlan {
+    }
+    
+    /**
+     * 对象字段状态向量
+     * <p>
+     * 指纹只能证明变化，不能证明未变化：不可变值类型字段按 equals 精确比较，其他字段指纹不同说明发生了变化，
+     * 指纹相同仍可能是碰撞，需要真正比较；transient 字段与 javers 一致不参与判断
+     */
+    public static final class FieldHashes {
+        
+        private final BeanHashPlan plan;
+        
+        private final Object[] values;
+        
+        private final long[] hashes;
+        
+        private FieldHashes(BeanHashPlan plan, Object[] values, long[] hashes) {
+            this.plan = plan;
+            this.values = values;
+            this.hashes = hashes;
+        }
+        
+        /**
+         * @param current 当前对象
+         * @return true 有字段发生了变化；false 所有字段均为不可变值类型且未变化；null 无法确定，需要真正比较
+         */
+        public Boolean changed(Object current) {
+            if (current == null || current.getClass() != plan.type) {
+                return null;
+            }
+            boolean exact = true;
+            for (int i = 0; i < hashes.length; i++) {
+                if (plan.ignored[i]) {
+                    continue;
+                }
+                if (plan.exact[i]) {
+                    if (!Objects.equals(values[i], plan.get(plan.fields[i], current))) {
+                        return true;
+                    }
+                } else if (plan.fieldHash(current, i) != hashes[i]) {
+                    return true;
+                } else {
+                    exact = false;
+                }
+            }
+            return exact ? false : null;
+        }
+        
+        /**
+         * @param current  当前对象
+         * @param property 根对象的字段名
+         * @return 不可变值类型字段按 equals 返回是否变化，其他字段返回 null
+         */
+        public Boolean propertyChanged(Object current, String property) {
+            if (current == null || current.getClass() != plan.type) {
+                return null;
+            }
+            Integer index = plan.indexes.get(property);
+            if (index == null || plan.ignored[index] || !plan.exact[index]) {
+                return null;
+            }
+            return !Objects.equals(values[index], plan.get(plan.fields[index], current));
+        }
+    }
+    
+    /**
+     * 普通对象，按字段计算
+     */
+    private final class BeanHashPlan implements HashPlan {
+        
+        private final Class<?> type;
+        
+        private final Field[] fields;
+        
+        /**
+         * 声明类型为不可变值类型，可直接保存引用后 equals 比较
+         */
+        private final boolean[] exact;
+        
+        /**
+         * transient 字段，javers 不比较
+         */
+        private final boolean[] ignored;
+        
+        private final Map<String, Integer> indexes = new HashMap<>();
+        
+        BeanHashPlan(Class<?> type, Field[] fields) {
+            this.type = type;
+            this.fields = fields;
+            this.exact = new boolean[fields.length];
+            this.ignored = new boolean[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                exact[i] = ValueTypes.isImmutable(fields[i].getType());
+                ignored[i] = Modifier.isTransient(fields[i].getModifiers());
+                indexes.putIfAbsent(fields[i].getName(), i);
+            }
+        }
+        
+        @Override
+        public long hash(Object source, Set<Object> visiting) {
+            long hash = stringHash(type.getName());
+            for (Field field : fields) {
+                hash = combine(hash, StructuralHasher.this.hash(get(field, source), visiting));
+            }
+            return hash;
+        }
+        
+        /**
+         * 单个字段的指纹，根对象视为已访问
+         */
+        long fieldHash(Object source, int index) {
+            Set<Object> visiting = Collections.newSetFromMap(new IdentityHashMap<>());
+            visiting.add(source);
+            return StructuralHasher.this.hash(get(fields[index], source), visiting);
+        }
+        
+        private Object get(Field field, Object source) {
+            try {
+                return field.get(source);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("hash fail " + type.getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.aggregate.snapshot;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.Currency;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * 值类型判断，快照、指纹与 diff 共用
+ *
+ * @author : wh
+ * @date : 2024/10/10 10:05
+ * @description:
+ */
+public final class ValueTypes {
+    
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(String.class, Boolean.class, Byte.class, Character.class, Short.class,
+            Integer.class, Long.class, Float.class, Double.class, BigDecimal.class, BigInteger.class, UUID.class, Class.class,
+            Locale.class, Currency.class, URI.class, Pattern.class);
+    
+    private ValueTypes() {
+    }
+    
+    /**
+     * 不可变类型，拷贝时可直接复用引用
+     */
+    public static boolean isImmutable(Class<?> type) {
+        return type.isPrimitive() || type.isEnum() || IMMUTABLE_TYPES.contains(type)
+                || (type.getSuperclass() != null && type.getSuperclass().isEnum())
+                || type.getName().startsWith("java.time.");
+    }
+    
+    /**
+     * 按 equals 比较的值类型，包含不可变类型与 Date
+     */
+    public static boolean isValue(Class<?> type) {
+        return isImmutable(type) || Date.class.isAssignableFrom(type);
+    }
+    
+    public static boolean isJdkType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.");
+    }
+}
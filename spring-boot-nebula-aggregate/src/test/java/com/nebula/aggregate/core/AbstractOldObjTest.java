@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.aggregate.core;
+
+import com.nebula.aggregate.snapshot.OrderAggregate;
+import com.nebula.aggregate.snapshot.ReflectiveSnapshotStrategy;
+import com.nebula.aggregate.snapshot.SnapshotStrategy;
+import com.nebula.aggregate.snapshot.StructuralHasher;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author : wh
+ * @date : 2024/10/9 14:20
+ * @description:
+ */
+public class AbstractOldObjTest {
+    
+    private final StructuralHasher hasher = new StructuralHasher();
+    
+    @Test
+    public void testCopyOnFirstWrite() {
+        AtomicInteger snapshots = new AtomicInteger();
+        SnapshotStrategy snapshotStrategy = countingStrategy(snapshots);
+        OrderAggregate order = OrderAggregate.create(3);
+        order.lazyOldObject(snapshotStrategy, hasher);
+        assertEquals(0, snapshots.get());
+        
+        order.markDirty();
+        order.getItems().get(0).setQuantity(99);
+        order.markDirty();
+        order.setOrderNo("NO2");
+        
+        assertEquals(1, snapshots.get());
+        assertEquals(1, order.getOld().getItems().get(0).getQuantity());
+        assertEquals("NO202410080001", order.getOld().getOrderNo());
+        assertTrue(new AggregateDiff(order).propertyHasChange("orderNo"));
+    }
+    
+    @Test
+    public void testReadOnly() {
+        AtomicInteger snapshots = new AtomicInteger();
+        SnapshotStrategy snapshotStrategy = countingStrategy(snapshots);
+        OrderAggregate order = OrderAggregate.create(3);
+        order.lazyOldObject(snapshotStrategy, hasher);
+        OrderAggregate old = order.getOld();
+        assertEquals(1, snapshots.get());
+        assertNotSame(order, old);
+        assertFalse(new AggregateDiff(order).hasChanges());
+    }
+    
+    @Test
+    public void testModifiedWithoutMarkDirty() {
+        SnapshotStrategy snapshotStrategy = countingStrategy(new AtomicInteger());
+        OrderAggregate order = OrderAggregate.create(3);
+        order.lazyOldObject(snapshotStrategy, hasher);
+        order.getAttributes().put("key-0", "changed");
+        assertThrows(IllegalStateException.class, order::getOld);
+    }
+    
+    @Test
+    public void testHashCodeCollisionDetected() {
+        SnapshotStrategy snapshotStrategy = countingStrategy(new AtomicInteger());
+        // "Aa" 与 "BB"、0L 与 4294967297L 的 hashCode 相同
+        OrderAggregate order = OrderAggregate.create(3);
+        order.setOrderNo("Aa");
+        order.lazyOldObject(snapshotStrategy, hasher);
+        order.setOrderNo("BB");
+        assertThrows(IllegalStateException.class, order::getOld);
+        
+        OrderAggregate other = OrderAggregate.create(3);
+        other.setId(0L);
+        other.lazyOldObject(snapshotStrategy, hasher);
+        other.setId(4294967297L);
+        assertThrows(IllegalStateException.class, other::getOld);
+    }
+    
+    @Test
+    public void testFingerprint() {
+        OrderAggregate order = OrderAggregate.create(3);
+        long fingerprint = hasher.hash(order);
+        assertEquals(fingerprint, hasher.hash(OrderAggregate.create(3)));
+        // DiffIgnore 字段不参与指纹
+        order.setRemark("changed");
+        assertEquals(fingerprint, hasher.hash(order));
+        order.getTags().add("new");
+        assertTrue(fingerprint != hasher.hash(order));
+    }
+    
+    @Test
+    public void testFieldFingerprint() {
+        AtomicInteger snapshots = new AtomicInteger();
+        SnapshotStrategy snapshotStrategy = countingStrategy(snapshots);
+        OrderAggregate order = OrderAggregate.create(3);
+        order.lazyOldObject(snapshotStrategy, hasher);
+        order.fingerprint(hasher);
+        // 根对象独有的不可变值类型属性直接按 equals 判断
+        assertFalse(new AggregateDiff(order).propertyHasChange("orderNo"));
+        assertEquals(0, snapshots.get());
+        // 集合字段指纹相同只代表可能未变化，仍由真正的 diff 确认
+        assertFalse(new AggregateDiff(order).hasChanges());
+        assertFalse(new AggregateDiff(order).propertyHasChange("items"));
+        assertEquals(1, snapshots.get());
+        
+        order.markDirty();
+        order.getItems().get(0).setQuantity(99);
+        AggregateDiff diff = new AggregateDiff(order);
+        assertFalse(diff.propertyHasChange("orderNo"));
+        assertTrue(diff.propertyHasChange("quantity"));
+        assertTrue(diff.hasChanges());
+    }
+    
+    @Test
+    public void testFieldFingerprintCollision() {
+        SnapshotStrategy snapshotStrategy = countingStrategy(new AtomicInteger());
+        OrderAggregate order = OrderAggregate.create(3);
+        order.setOrderNo("Aa");
+        order.lazyOldObject(snapshotStrategy, hasher);
+        order.fingerprint(hasher);
+        order.markDirty();
+        order.setOrderNo("BB");
+        assertTrue(new AggregateDiff(order).hasChanges());
+        assertTrue(new AggregateDiff(order).propertyHasChange("orderNo"));
+    }
+    
+    @Test
+    public void testFieldFingerprintNestedProperty() {
+        SnapshotStrategy snapshotStrategy = countingStrategy(new AtomicInteger());
+        OrderAggregate order = OrderAggregate.create(3);
+        order.lazyOldObject(snapshotStrategy, hasher);
+        order.fingerprint(hasher);
+        order.markDirty();
+        // 根对象 id 未变化，订单项上的同名属性 id 变化，与 javers 语义一致
+        order.getItems().get(0).setId(100L);
+        assertTrue(new AggregateDiff(order).propertyHasChange("id"));
+        assertTrue(PropertyAccessors.rootOnly(OrderAggregate.class, "orderNo"));
+        assertFalse(PropertyAccessors.rootOnly(OrderAggregate.class, "id"));
+    }
+    
+    /**
+     * 每个用例独立计数，surefire 2.18.1 的 POJO provider 在同一实例上执行全部用例
+     */
+    private static SnapshotStrategy countingStrategy(AtomicInteger snapshots) {
+        ReflectiveSnapshotStrategy delegate = new ReflectiveSnapshotStrategy();
+        return new SnapshotStrategy() {
+            
+            @Override
+            public <T> T snapshot(T source) {
+                snapshots.incrementAndGet();
+                return delegate.snapshot(source);
+            }
+        };
+    }
+}
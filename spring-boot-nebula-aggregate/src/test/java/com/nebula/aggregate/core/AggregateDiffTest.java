@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.aggregate.core;
+
+import com.nebula.aggregate.snapshot.OrderAggregate;
+import com.nebula.aggregate.snapshot.ReflectiveSnapshotStrategy;
+import com.nebula.base.utils.ThreadPoolBuilder;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.javers.core.metamodel.annotation.Id;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author : wh
+ * @date : 2024/10/10 14:30
+ * @description:
+ */
+public class AggregateDiffTest {
+    
+    private final ReflectiveSnapshotStrategy snapshotStrategy = new ReflectiveSnapshotStrategy();
+    
+    @Test
+    public void testNativeMatchesJavers() {
+        OrderAggregate old = OrderAggregate.create(5);
+        OrderAggregate current = snapshotStrategy.snapshot(old);
+        current.setAmount(new BigDecimal("1.00"));
+        current.getItems().get(1).setSkuName("changed");
+        current.getTags().add("new");
+        
+        AggregateDiff javers = new AggregateDiff(old, current);
+        AggregateDiff nativeDiff = new AggregateDiff(old, current, DiffEngine.NATIVE);
+        for (String property : new String[]{"id", "orderNo", "status", "amount", "version", "items", "tags", "attributes"}) {
+            assertEquals(javers.propertyHasChange(property), nativeDiff.propertyHasChange(property), property);
+        }
+        assertTrue(nativeDiff.hasChanges());
+        assertTrue(nativeDiff.simplePropertiesHasChange());
+    }
+    
+    @Test
+    public void testNativeGraphFallback() {
+        OrderAggregate old = OrderAggregate.create(5);
+        OrderAggregate current = snapshotStrategy.snapshot(old);
+        AggregateDiff unchanged = new AggregateDiff(old, current, DiffEngine.NATIVE);
+        assertFalse(unchanged.hasChanges());
+        assertFalse(unchanged.simplePropertiesHasChange());
+        
+        current.getAttributes().put("key-0", "changed");
+        AggregateDiff changed = new AggregateDiff(old, current, DiffEngine.NATIVE);
+        assertTrue(changed.hasChanges());
+        assertFalse(changed.propertyHasChange("orderNo"));
+    }
+    
+    @Test
+    public void testNativeListChange() {
+        List<OrderAggregate.OrderItem> oldItems = OrderAggregate.create(2000).getItems();
+        List<OrderAggregate.OrderItem> newItems = new ArrayList<>(snapshotStrategy.snapshot(oldItems));
+        newItems.remove(10);
+        newItems.get(20).setQuantity(99);
+        OrderAggregate.OrderItem added = new OrderAggregate.OrderItem();
+        added.setSkuName("added");
+        newItems.add(added);
+        
+        List<List<Long>> result = new ArrayList<>();
+        AggregateDiff.listChangeFunction(oldItems, newItems, OrderAggregate.OrderItem.class, DiffEngine.NATIVE,
+                add -> assertEquals("added", add.get(0).getSkuName()),
+                update -> result.add(update.stream().map(OrderAggregate.OrderItem::getId).collect(Collectors.toList())),
+                remove -> result.add(remove.stream().map(OrderAggregate.OrderItem::getId).collect(Collectors.toList())));
+        assertEquals(List.of(List.of(21L), List.of(10L)), result);
+    }
+    
+    @Test
+    public void testPropertyFunc() {
+        OrderAggregate old = OrderAggregate.create(1);
+        OrderAggregate current = snapshotStrategy.snapshot(old);
+        current.setStatus(OrderAggregate.OrderStatus.PAID);
+        AggregateDiff diff = new AggregateDiff(old, current, DiffEngine.NATIVE);
+        for (int i = 0; i < 2; i++) {
+            assertTrue(diff.propertyHasChange(OrderAggregate::getOrderNo, OrderAggregate::getStatus));
+            assertFalse(diff.propertyHasChange(OrderAggregate::getOrderNo, OrderAggregate::getAmount));
+        }
+    }
+    
+    @Test
+    public void testCollectionChanges() {
+        List<Line> oldLines = List.of(line(1L, "a"), line(2L, "b"), line(3L, "c"));
+        List<Line> newLines = List.of(line(1L, "a"), line(2L, "b2"), line(null, "d"));
+        for (DiffEngine engine : DiffEngine.values()) {
+            List<String> events = new ArrayList<>();
+            AggregateDiff.collectionChanges(oldLines, newLines, Line.class, engine, new AggregateChangeSink() {
+                
+                @Override
+                public void added(Object object) {
+                    events.add("added:" + ((Line) object).getName());
+                }
+                
+                @Override
+                public void removed(Object object) {
+                    events.add("removed:" + ((Line) object).getId());
+                }
+                
+                @Override
+                public void propertyChanged(Object object, String property, Object oldValue, Object newValue) {
+                    events.add(property + ":" + oldValue + "->" + newValue);
+                }
+            });
+            events.sort(null);
+            assertEquals(List.of("added:d", "name:b->b2", "removed:3"), events, engine.name());
+        }
+    }
+    
+    @Test
+    public void testNativeChanges() {
+        Line old = line(1L, "a");
+        Line current = line(1L, "b");
+        List<String> events = new ArrayList<>();
+        new AggregateDiff(old, current, DiffEngine.NATIVE).changes(new AggregateChangeSink() {
+            
+            @Override
+            public void propertyChanged(Object object, String property, Object oldValue, Object newValue) {
+                events.add(property + ":" + oldValue + "->" + newValue);
+            }
+        });
+        assertEquals(List.of("name:a->b"), events);
+    }
+    
+    @Test
+    public void testTransientFieldIgnored() {
+        Line old = line(1L, "a");
+        Line current = line(1L, "a");
+        current.setCache("changed");
+        for (DiffEngine engine : DiffEngine.values()) {
+            AggregateDiff diff = new AggregateDiff(old, current, engine);
+            assertFalse(diff.hasChanges(), engine.name());
+            assertFalse(diff.propertyHasChange("cache"), engine.name());
+            List<String> events = new ArrayList<>();
+            AggregateChangeSink sink = new AggregateChangeSink() {
+                
+                @Override
+                public void propertyChanged(Object object, String property, Object oldValue, Object newValue) {
+                    events.add(property);
+                }
+            };
+            diff.changes(sink);
+            AggregateDiff.collectionChanges(List.of(old), List.of(current), Line.class, engine, sink);
+            assertEquals(List.of(), events, engine.name());
+        }
+    }
+    
+    @Test
+    public void testParallelCollectionChange() {
+        // javers 的 list 比较为 O(n^2)，降低并行阈值后用小数据量走并行分区
+        int size = 2000;
+        int parallelThreshold = 100;
+        List<Line> oldLines = new ArrayList<>(size);
+        List<Line> newLines = new ArrayList<>(size);
+        for (long i = 0; i < size; i++) {
+            oldLines.add(line(i, "name-" + i));
+            Line line = line(i, i % 100 == 0 ? "changed" : "name-" + i);
+            if (i % 100 == 1) {
+                // 只有嵌套的集合属性变化
+                line.getTags().add("new");
+            }
+            newLines.add(line);
+        }
+        newLines.remove(size - 1);
+        
+        List<Map<String, Line>> sequential = new ArrayList<>();
+        AggregateDiff.collectionChangeFunction(oldLines, newLines, Line.class, sequential::add, sequential::add, sequential::add);
+        // 删除的元素也会以 javers 的终止值变化出现在修改中
+        assertTrue(sequential.get(0).containsKey("101"));
+        
+        ThreadPoolExecutor executor = ThreadPoolBuilder.cpuThreadPoolBuilder().setThreadNamePrefix("diff-test-").setDaemon(true).builder();
+        try {
+            List<Map<String, Line>> parallel = new ArrayList<>();
+            AggregateDiff.collectionChangeFunction(oldLines, newLines, Line.class, DiffEngine.JAVERS, executor, parallelThreshold,
+                    parallel::add, parallel::add, parallel::add);
+            assertEquals(sequential, parallel);
+            
+            Line added = line(null, "added");
+            newLines.add(added);
+            List<Map<String, Line>> result = new ArrayList<>();
+            AggregateDiff.collectionChangeFunction(oldLines, newLines, Line.class, DiffEngine.NATIVE, executor, parallelThreshold,
+                    result::add, result::add, result::add);
+            assertEquals(3, result.size());
+            assertSame(added, result.get(0).values().iterator().next());
+            assertEquals(size / 100 * 2, result.get(1).size());
+            assertTrue(result.get(1).containsKey("101"));
+            assertEquals(Set.of(String.valueOf(size - 1)), result.get(2).keySet());
+            // 不修改传入的元素
+            assertNull(added.getId());
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    private static Line line(Long id, String name) {
+        Line line = new Line();
+        line.setId(id);
+        line.setName(name);
+        return line;
+    }
+    
+    @Test
+    public void testInitNegativeIdInheritedField() {
+        Line line = new Line();
+        Line exist = new Line();
+        exist.setId(1L);
+        AggregateDiff.initNegativeId(Line.class, List.of(line, exist));
+        assertNotNull(line.getId());
+        assertEquals(1L, exist.getId());
+    }
+    
+    @Data
+    static class BaseLine {
+        
+        @Id
+        private Long id;
+    }
+    
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    static class Line extends BaseLine {
+        
+        private String name;
+        
+        private List<String> tags = new ArrayList<>();
+        
+        private transient String cache;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.aggregate.snapshot;
+
+import com.nebula.aggregate.core.AbstractAggregate;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.javers.core.metamodel.annotation.DiffIgnore;
+
+/**
+ * @author : wh
+ * @date : 2024/10/8 14:10
+ * @description: 快照测试用聚合根
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+public class OrderAggregate extends AbstractAggregate<OrderAggregate> {
+    
+    private Long id;
+    
+    private String orderNo;
+    
+    private OrderStatus status;
+    
+    private BigDecimal amount;
+    
+    private LocalDateTime createTime;
+    
+    private int version;
+    
+    private List<OrderItem> items = new ArrayList<>();
+    
+    private Map<String, String> attributes = new LinkedHashMap<>();
+    
+    private Set<String> tags = new TreeSet<>();
+    
+    @DiffIgnore
+    private String remark;
+    
+    public enum OrderStatus {
+        CREATED, PAID
+    }
+    
+    @Data
+    public static class OrderItem {
+        
+        private Long id;
+        
+        private String skuName;
+        
+        private Integer quantity;
+        
+        private BigDecimal price;
+    }
+    
+    /**
+     * 构建约 count 个订单项的订单
+     */
+    public static OrderAggregate create(int count) {
+        OrderAggregate order = new OrderAggregate();
+        order.setId(10086L);
+        order.setOrderNo("NO202410080001");
+        order.setStatus(OrderStatus.CREATED);
+        order.setAmount(new BigDecimal("1024.50"));
+        order.setCreateTime(LocalDateTime.of(2024, 10, 8, 10, 0));
+        order.setVersion(1);
+        order.setRemark("remark");
+        for (int i = 0; i < count; i++) {
+            OrderItem item = new OrderItem();
+            item.setId((long) i);
+            item.setSkuName("sku-name-" + i);
+            item.setQuantity(i % 5 + 1);
+            item.setPrice(new BigDecimal("12.80"));
+            order.getItems().add(item);
+            order.getAttributes().put("key-" + i, "value-" + i);
+        }
+        order.getTags().add("vip");
+        order.getTags().add("express");
+        return order;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.aggregate.snapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author : wh
+ * @date : 2024/10/8 14:30
+ * @description:
+ */
+public class ReflectiveSnapshotStrategyTest {
+    
+    private final ReflectiveSnapshotStrategy strategy = new ReflectiveSnapshotStrategy();
+    
+    @Test
+    public void testDeepCopy() {
+        OrderAggregate order = OrderAggregate.create(3);
+        OrderAggregate snapshot = strategy.snapshot(order);
+        
+        assertNotSame(order, snapshot);
+        assertNotSame(order.getItems(), snapshot.getItems());
+        assertNotSame(order.getItems().get(0), snapshot.getItems().get(0));
+        assertNotSame(order.getTags(), snapshot.getTags());
+        assertSame(order.getOrderNo(), snapshot.getOrderNo());
+        assertEquals(order.getItems(), snapshot.getItems());
+        assertEquals(order.getAttributes(), snapshot.getAttributes());
+        assertEquals(order.getTags(), snapshot.getTags());
+        assertEquals(order.getAmount(), snapshot.getAmount());
+        assertEquals(order.getVersion(), snapshot.getVersion());
+        // DiffIgnore 字段不拷贝
+        assertNull(snapshot.getRemark());
+        
+        snapshot.getItems().get(0).setQuantity(99);
+        assertEquals(1, order.getItems().get(0).getQuantity());
+    }
+    
+    @Test
+    public void testSharedReference() {
+        Node node = new Node();
+        node.self = node;
+        node.children.add(node);
+        Node snapshot = strategy.snapshot(node);
+        assertNotSame(node, snapshot);
+        assertSame(snapshot, snapshot.self);
+        assertSame(snapshot, snapshot.children.get(0));
+    }
+    
+    @Test
+    public void testFallback() {
+        Immutable immutable = new Immutable("a");
+        // 无无参构造器的类型交给 fallback
+        ReflectiveSnapshotStrategy strategy = new ReflectiveSnapshotStrategy(new SnapshotStrategy() {
+            
+            @Override
+            public <T> T snapshot(T source) {
+                return source;
+            }
+        });
+        assertSame(immutable, strategy.snapshot(immutable));
+    }
+    
+    private static class Node {
+        
+        private Node self;
+        
+        private final List<Node> children = new ArrayList<>();
+    }
+    
+    private static class Immutable {
+        
+        private final String value;
+        
+        Immutable(String value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.base.utils;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按类缓存的字段访问器，包含父类字段，子类字段覆盖父类同名字段，不包含 static 字段
+ * <p>
+ * 字段解析与 setAccessible 只在每个类第一次访问时执行一次，之后通过 MethodHandle 读写；
+ * 与 Field.set 一样，setAccessible 后可以写非 static 的 final 字段
+ *
+ * @author : wh
+ * @date : 2024/10/11 10:20
+ * @description:
+ */
+public final class FieldAccessor {
+    
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    
+    private static final ClassValue<Map<String, FieldAccessor>> ACCESSORS = new ClassValue<>() {
+        
+        @Override
+        protected Map<String, FieldAccessor> computeValue(Class<?> type) {
+            return createAccessors(type);
+        }
+    };
+    
+    private final Field field;
+    
+    private final MethodHandle getter;
+    
+    /**
+     * 无法写入的 final 字段为 null
+     */
+    private final MethodHandle setter;
+    
+    private FieldAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+        this.field = field;
+        this.getter = getter;
+        this.setter = setter;
+    }
+    
+    /**
+     * 获取类的全部字段访问器，按子类到父类、字段声明顺序排列
+     *
+     * @param type 类
+     * @return 字段名 -> 访问器
+     */
+    public static Map<String, FieldAccessor> forClass(Class<?> type) {
+        return ACCESSORS.get(type);
+    }
+    
+    /**
+     * 获取指定字段的访问器
+     *
+     * @param type      类
+     * @param fieldName 字段名
+     * @return 不存在时返回 null
+     */
+    public static FieldAccessor of(Class<?> type, String fieldName) {
+        return ACCESSORS.get(type).get(fieldName);
+    }
+    
+    private static Map<String, FieldAccessor> createAccessors(Class<?> type) {
+        Map<String, FieldAccessor> accessors = new LinkedHashMap<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            MethodHandles.Lookup lookup;
+            try {
+                lookup = MethodHandles.privateLookupIn(current, MethodHandles.lookup());
+            } catch (IllegalAccessException e) {
+                // 未开放反射的模块中的类
+                continue;
+            }
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic() || accessors.containsKey(field.getName())) {
+                    continue;
+                }
+                try {
+                    MethodHandle getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                    MethodHandle setter = createSetter(lookup, field);
+                    accessors.put(field.getName(), new FieldAccessor(field, getter, setter));
+                } catch (IllegalAccessException e) {
+                    // 无法访问的字段忽略
+                }
+            }
+        }
+        return Collections.unmodifiableMap(accessors);
+    }
+    
+    /**
+     * final 字段需 setAccessible 后才能 unreflectSetter，失败时返回 null
+     */
+    private static MethodHandle createSetter(MethodHandles.Lookup lookup, Field field) throws IllegalAccessException {
+        if (!Modifier.isFinal(field.getModifiers())) {
+            return lookup.unreflectSetter(field).asType(SETTER_TYPE);
+        }
+        try {
+            field.setAccessible(true);
+            return lookup.unreflectSetter(field).asType(SETTER_TYPE);
+        } catch (RuntimeException | IllegalAccessException e) {
+            return null;
+        }
+    }
+    
+    public Field getField() {
+        return field;
+    }
+    
+    public String getName() {
+        return field.getName();
+    }
+    
+    public Class<?> getType() {
+        return field.getType();
+    }
+    
+    public boolean isAnnotationPresent(Class<? extends Annotation> annotationClass) {
+        return field.isAnnotationPresent(annotationClass);
+    }
+    
+    /**
+     * 读取字段值
+     *
+     * @param target 对象
+     * @return 字段值
+     */
+    public Object get(Object target) {
+        try {
+            return getter.invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * 设置字段值
+     *
+     * @param target 对象
+     * @param value  字段值
+     * @throws IllegalStateException 无法写入的 final 字段
+     */
+    public void set(Object target, Object value) {
+        if (setter == null) {
+            throw new IllegalStateException("final field " + field + " can not be set");
+        }
+        try {
+            setter.invokeExact(target, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -23,6 +23,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.json.JsonReadFeature;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import com.nebula.base.exception.ExceptionUtil;
 import lombok.extern.slf4j.Slf4j;
 
@@ -40,6 +42,13 @@ import java.util.*;
 @Slf4j
 public class JsonUtil {
     
+    /**
+     * 为 {@link #getInstance()} 开启 Blackbird 字节码加速的系统属性
+     */
+    public static final String BLACKBIRD_PROPERTY = "nebula.jackson.blackbird";
+    
+    private static final String BLACKBIRD_MODULE = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+    
     /**
      * 将对象序列化成json字符串
      *
@@ -328,6 +337,50 @@ public class JsonUtil {
         }
     }
     
+    /**
+     * 为 ObjectMapper 注册 Blackbird 模块，使用 LambdaMetafactory 生成属性访问代码替代反射
+     * <p>
+     * 需引入 jackson-module-blackbird，未引入时仅打印告警
+     *
+     * @param objectMapper objectMapper
+     * @return 传入的 objectMapper
+     */
+    public static ObjectMapper registerBlackbird(ObjectMapper objectMapper) {
+        if (!isBlackbirdPresent()) {
+            log.warn("jackson-module-blackbird not found in classpath, skip register");
+            return objectMapper;
+        }
+        return BlackbirdRegistrar.register(objectMapper);
+    }
+    
+    public static boolean isBlackbirdPresent() {
+        try {
+            Class.forName(BLACKBIRD_MODULE, false, JsonUtil.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * ServiceLoader 发现的模块，字节码加速模块需显式开启，不随 jar 引入自动注册
+     */
+    private static List<Module> discoverModules() {
+        List<Module> modules = ObjectMapper.findModules();
+        modules.removeIf(module -> BLACKBIRD_MODULE.equals(module.getClass().getName()));
+        return modules;
+    }
+    
+    /**
+     * 隔离对 BlackbirdModule 的引用，未引入依赖时不加载该类
+     */
+    private static class BlackbirdRegistrar {
+        
+        private static ObjectMapper register(ObjectMapper objectMapper) {
+            return objectMapper.registerModule(new BlackbirdModule());
+        }
+    }
+    
     public static ObjectMapper getInstance() {
         return JacksonHolder.INSTANCE;
     }
@@ -357,7 +410,7 @@ public class JsonUtil {
             // 序列化处理
             super.configure(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS.mappedFeature(), true);
             super.configure(JsonReadFeature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER.mappedFeature(), true);
-            super.findAndRegisterModules();
+            super.registerModules(discoverModules());
             // 失败处理
             super.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
             super.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
@@ -367,7 +420,10 @@ public class JsonUtil {
             super.getDeserializationConfig().withoutFeatures(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
             // 日期格式化
             super.registerModule(new JacksonTimeModule());
-            super.findAndRegisterModules();
+            super.registerModules(discoverModules());
+            if (Boolean.getBoolean(BLACKBIRD_PROPERTY)) {
+                registerBlackbird(this);
+            }
         }
         
         @Override
@@ -24,9 +24,9 @@ import java.beans.PropertyDescriptor;
 import java.lang.annotation.Annotation;
 import java.lang.invoke.SerializedLambda;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,16 +43,52 @@ public class ReflectionUtils {
     private static final Logger logger = LoggerFactory.getLogger(ReflectionUtils.class);
     
     /**
-     * 获取 Function 名
+     * lambda 类 -> 字段名，同一个方法引用每次调用都是同一个 lambda 类
+     */
+    private static final ClassValue<FieldNameHolder> FIELD_NAME_CACHE = new ClassValue<>() {
+        
+        @Override
+        protected FieldNameHolder computeValue(Class<?> type) {
+            return new FieldNameHolder();
+        }
+    };
+    
+    /**
+     * 获取 Function 名，按 lambda 类缓存解析结果
      * @param func
      * @param <T>
      * @param <R>
      * @return
      */
     public static <T, R> String getFieldName(PropertyFunc<T, R> func) {
+        FieldNameHolder holder = FIELD_NAME_CACHE.get(func.getClass());
+        String fieldName = holder.fieldName;
+        if (fieldName == null) {
+            fieldName = resolveFieldName(func);
+            holder.fieldName = fieldName;
+        }
+        return fieldName;
+    }
+    
+    /**
+     * 批量获取 Function 名
+     * @param functions
+     * @param <T>
+     * @return 与 functions 顺序一致的字段名
+     */
+    @SafeVarargs
+    public static <T> List<String> getFieldNames(PropertyFunc<T, ?>... functions) {
+        List<String> fieldNames = new ArrayList<>(functions.length);
+        for (PropertyFunc<T, ?> function : functions) {
+            fieldNames.add(getFieldName(function));
+        }
+        return fieldNames;
+    }
+    
+    private static <T, R> String resolveFieldName(PropertyFunc<T, R> func) {
         try {
             // 通过获取对象方法，判断是否存在该方法
-            Method method = func.getClass().getDeclaredMethod("writeReplace");
+            Method method = func.getClass().getDeclaredMethod(METHOD);
             method.setAccessible(Boolean.TRUE);
             // 利用jdk的SerializedLambda 解析方法引用
             SerializedLambda serializedLambda = (SerializedLambda) method.invoke(func);
@@ -81,41 +117,22 @@ public class ReflectionUtils {
     }
     
     /**
-     * class 是否存在属性
+     * class 是否存在属性，包含父类属性
      * @param fieldName 属性名
      * @param clazz     类
      * @return
      */
     public static <T> boolean isExistFieldName(String fieldName, Class<T> clazz) {
-        boolean flag = false;
-        // 获取这个类的所有属性
-        Field[] fields = clazz.getDeclaredFields();
-        // 循环遍历所有的fields
-        for (Field field : fields) {
-            if (field.getName().equals(fieldName)) {
-                flag = true;
-                break;
-            }
-        }
-        return flag;
+        return FieldAccessor.of(clazz, fieldName) != null;
     }
     
     public static <T, V extends Annotation> boolean isExistFieldName(String fieldName, Class<T> clazz, Class<V> annotationClass) {
-        boolean flag = false;
-        // 获取这个类的所有属性
-        Field[] fields = clazz.getDeclaredFields();
-        // 循环遍历所有的fields
-        for (Field field : fields) {
-            if (field.getName().equals(fieldName) && Objects.nonNull(field.getAnnotation(annotationClass))) {
-                flag = true;
-                break;
-            }
-        }
-        return flag;
+        FieldAccessor accessor = FieldAccessor.of(clazz, fieldName);
+        return accessor != null && accessor.isAnnotationPresent(annotationClass);
     }
     
     /**
-     * 获取指定属性
+     * 获取指定属性，包含父类属性
      *
      * @param object
      * @param fieldName
@@ -124,9 +141,11 @@ public class ReflectionUtils {
      */
     public static Object getPropertyValue(Object object, String fieldName) {
         try {
-            Field field = object.getClass().getDeclaredField(fieldName);
-            field.setAccessible(true);
-            return field.get(object);
+            FieldAccessor accessor = FieldAccessor.of(object.getClass(), fieldName);
+            if (accessor == null) {
+                throw new NoSuchFieldException(fieldName);
+            }
+            return accessor.get(object);
         } catch (Exception e) {
             logger.error("getPropertyValue exception", e);
             return null;
@@ -134,7 +153,7 @@ public class ReflectionUtils {
     }
     
     /**
-     * 设置属性值
+     * 设置属性值，包含父类属性
      *
      * @param object
      * @param fieldName
@@ -142,9 +161,11 @@ public class ReflectionUtils {
      */
     public static void setPropertyValue(Object object, String fieldName, Object value) {
         try {
-            Field f = object.getClass().getDeclaredField(fieldName);
-            f.setAccessible(true);
-            f.set(object, value);
+            FieldAccessor accessor = FieldAccessor.of(object.getClass(), fieldName);
+            if (accessor == null) {
+                throw new NoSuchFieldException(fieldName);
+            }
+            accessor.set(object, value);
         } catch (Exception e) {
             logger.error("setPropertyValue exception", e);
         }
@@ -179,4 +200,11 @@ public class ReflectionUtils {
         return Optional.empty();
     }
     
+    private static final class FieldNameHolder {
+        
+        /**
+         * 并发时可能重复解析，结果相同
+         */
+        private volatile String fieldName;
+    }
 }
@@ -17,6 +17,8 @@
  
 package com.nebula.distribute.lock.annotation;
 
+import com.nebula.distribute.lock.enums.LeaseMode;
+import com.nebula.distribute.lock.enums.LockMode;
 import java.lang.annotation.Documented;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -25,6 +27,8 @@ import java.lang.annotation.Target;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * 方法返回 CompletableFuture/CompletionStage 时使用异步加锁，锁在 future 完成后释放
+ *
  * @author : wh
  * @date : 2024/3/13 13:49
  * @description:
@@ -54,11 +58,22 @@ public @interface NebulaDistributedLock {
      */
     String separator() default "_";
     
+    /**
+     * 是否多key加锁，开启后 lockNamePost 需为返回集合或数组的EL表达式，
+     * 每个元素与 lockNamePre 拼接为一个锁名，排序后一次性加锁；不能同时设置 lockName，不支持返回 CompletableFuture 的方法
+     */
+    boolean multiLock() default false;
+    
     /**
      * 是否使用公平锁
      */
     boolean fairLock() default false;
     
+    /**
+     * 锁模式，READ 读锁之间不互斥，WRITE 写锁独占；fairLock 为 true 时 EXCLUSIVE 视为 FAIR
+     */
+    LockMode lockMode() default LockMode.EXCLUSIVE;
+    
     /**
      * 是否使用尝试锁
      */
@@ -74,6 +89,11 @@ public @interface NebulaDistributedLock {
      */
     long outTime() default 20L;
     
+    /**
+     * 租期模式，AUTO_RENEW 时忽略 outTime，持有锁期间由看门狗自动续期
+     */
+    LeaseMode leaseMode() default LeaseMode.FIXED;
+    
     /**
      * 时间单位 默认秒
      */
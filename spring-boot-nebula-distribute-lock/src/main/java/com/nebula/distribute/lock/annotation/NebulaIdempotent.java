@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 幂等注解，相同key的首次调用结果缓存 ttl 时间，期间重复调用直接返回缓存结果不再执行方法
+ * <p>
+ * 并发的重复调用通过分布式锁串行，只有一个会执行方法；方法抛出异常时不缓存，允许重试；
+ * 返回值需能被 json 序列化，不支持返回 CompletableFuture 的方法
+ *
+ * @author : wh
+ * @date : 2024/9/30 10:10
+ * @description:
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface NebulaIdempotent {
+    
+    /**
+     * 固定幂等key
+     */
+    String key() default "";
+    
+    /**
+     * 幂等key前缀，支持EL表达式
+     */
+    String keyPre() default "";
+    
+    /**
+     * 幂等key后缀，支持EL表达式
+     */
+    String keyPost() default "";
+    
+    /**
+     * 前后缀拼接分隔符
+     */
+    String separator() default "_";
+    
+    /**
+     * 结果缓存时间
+     */
+    long ttl() default 60L;
+    
+    /**
+     * 并发重复调用等待首次调用完成的最长时间，超时抛出 DistributedLockException
+     */
+    long waitTime() default 30L;
+    
+    /**
+     * 时间单位 默认秒
+     */
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+}
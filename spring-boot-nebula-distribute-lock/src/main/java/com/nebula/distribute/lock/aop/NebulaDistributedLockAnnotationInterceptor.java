@@ -19,16 +19,26 @@ package com.nebula.distribute.lock.aop;
 
 import com.nebula.base.utils.DataUtils;
 import com.nebula.distribute.lock.annotation.NebulaDistributedLock;
+import com.nebula.distribute.lock.core.AsyncDistributedLock;
 import com.nebula.distribute.lock.core.DistributedLock;
+import com.nebula.distribute.lock.core.DistributedMultiLock;
 import com.nebula.distribute.lock.core.NebulaDistributedLockTemplate;
-import com.nebula.web.common.utils.ExpressionUtil;
+import com.nebula.distribute.lock.enums.LockMode;
+import com.nebula.distribute.lock.exception.DistributedLockException;
 import java.lang.reflect.Method;
-import java.util.Objects;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import lombok.extern.slf4j.Slf4j;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 
 /**
  * @author : wh
@@ -40,6 +50,11 @@ public class NebulaDistributedLockAnnotationInterceptor implements MethodInterce
     
     private final NebulaDistributedLockTemplate lock;
     
+    /**
+     * 加锁计划缓存
+     */
+    private final Map<MethodClassKey, NebulaDistributedLockPlan> lockPlanCache = new ConcurrentHashMap<>();
+    
     public NebulaDistributedLockAnnotationInterceptor(NebulaDistributedLockTemplate lock) {
         if (DataUtils.isEmpty(lock)) {
             throw new RuntimeException("DistributedLockTemplate is null");
@@ -51,14 +66,20 @@ public class NebulaDistributedLockAnnotationInterceptor implements MethodInterce
     @Override
     public Object invoke(@Nonnull MethodInvocation methodInvocation) {
         Method method = methodInvocation.getMethod();
-        NebulaDistributedLock annotation = method.getAnnotation(NebulaDistributedLock.class);
+        NebulaDistributedLockPlan plan = getLockPlan(methodInvocation);
         Object[] args = methodInvocation.getArguments();
-        String lockName = getLockName(annotation, args, method);
+        if (plan.isMultiLock()) {
+            return multiLock(methodInvocation, plan, plan.lockNames(method, args));
+        }
+        String lockName = plan.lockName(method, args);
         if (log.isDebugEnabled()) {
             log.debug("lockName: {}", lockName);
         }
-        boolean fairLock = annotation.fairLock();
-        if (annotation.tryLock()) {
+        if (plan.isAsync()) {
+            return asyncLock(methodInvocation, plan, lockName);
+        }
+        LockMode lockMode = plan.getLockMode();
+        if (plan.isTryLock()) {
             return lock.tryLock(new DistributedLock<>() {
                 
                 @Override
@@ -70,7 +91,12 @@ public class NebulaDistributedLockAnnotationInterceptor implements MethodInterce
                 public String lockName() {
                     return lockName;
                 }
-            }, annotation.tryWaitTime(), annotation.outTime(), annotation.timeUnit(), fairLock);
+                
+                @Override
+                public String lockPattern() {
+                    return plan.getLockPattern();
+                }
+            }, plan.getTryWaitTime(), plan.getOutTime(), plan.getTimeUnit(), lockMode);
         } else {
             return lock.lock(new DistributedLock<>() {
                 
@@ -83,10 +109,71 @@ public class NebulaDistributedLockAnnotationInterceptor implements MethodInterce
                 public String lockName() {
                     return lockName;
                 }
-            }, annotation.outTime(), annotation.timeUnit(), fairLock);
+                
+                @Override
+                public String lockPattern() {
+                    return plan.getLockPattern();
+                }
+            }, plan.getOutTime(), plan.getTimeUnit(), lockMode);
         }
     }
     
+    /**
+     * 方法返回 CompletableFuture 时异步加锁，等待锁期间不占用调用线程，锁在返回的 future 完成后释放
+     */
+    private Object asyncLock(MethodInvocation methodInvocation, NebulaDistributedLockPlan plan, String lockName) {
+        AsyncDistributedLock<Object> distributedLock = new AsyncDistributedLock<>() {
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public CompletableFuture<Object> process() {
+                Object result = proceed(methodInvocation);
+                return result == null ? CompletableFuture.completedFuture(null) : ((CompletionStage<Object>) result).toCompletableFuture();
+            }
+            
+            @Override
+            public String lockName() {
+                return lockName;
+            }
+            
+            @Override
+            public String lockPattern() {
+                return plan.getLockPattern();
+            }
+        };
+        if (plan.isTryLock()) {
+            return lock.tryLockAsync(distributedLock, plan.getTryWaitTime(), plan.getOutTime(), plan.getTimeUnit(), plan.getLockMode());
+        }
+        return lock.lockAsync(distributedLock, plan.getOutTime(), plan.getTimeUnit(), plan.getLockMode());
+    }
+    
+    private Object multiLock(MethodInvocation methodInvocation, NebulaDistributedLockPlan plan, Collection<String> lockNames) {
+        if (log.isDebugEnabled()) {
+            log.debug("lockNames: {}", lockNames);
+        }
+        DistributedMultiLock<Object> distributedLock = new DistributedMultiLock<>() {
+            
+            @Override
+            public Object process() {
+                return proceed(methodInvocation);
+            }
+            
+            @Override
+            public Collection<String> lockNames() {
+                return lockNames;
+            }
+            
+            @Override
+            public String lockPattern() {
+                return plan.getLockPattern();
+            }
+        };
+        if (plan.isTryLock()) {
+            return lock.tryMultiLock(distributedLock, plan.getTryWaitTime(), plan.getOutTime(), plan.getTimeUnit(), plan.getLockMode());
+        }
+        return lock.multiLock(distributedLock, plan.getOutTime(), plan.getTimeUnit(), plan.getLockMode());
+    }
+    
     public Object proceed(MethodInvocation methodInvocation) {
         try {
             return methodInvocation.proceed();
@@ -97,36 +184,27 @@ public class NebulaDistributedLockAnnotationInterceptor implements MethodInterce
     }
     
     /**
-     * 获取锁名字，优先获取注解中锁名
+     * 获取加锁计划，首次调用时解析注解并缓存
      *
-     * @param nebulaDistributedLock
-     * @param args
-     * @param method
+     * @param methodInvocation
      * @return
      */
-    private String getLockName(NebulaDistributedLock nebulaDistributedLock, Object[] args, Method method) {
-        if (DataUtils.isNotEmpty(nebulaDistributedLock.lockName())) {
-            return nebulaDistributedLock.lockName();
-        }
-        String lockNamePre = nebulaDistributedLock.lockNamePre();
-        String lockNamePost = nebulaDistributedLock.lockNamePost();
-        String separator = nebulaDistributedLock.separator();
-        
-        if (ExpressionUtil.isEl(lockNamePre)) {
-            lockNamePre = (String) ExpressionUtil.parse(lockNamePre, method, args);
-        }
-        if (ExpressionUtil.isEl(lockNamePost)) {
-            lockNamePost = Objects.requireNonNull(ExpressionUtil.parse(lockNamePost, method, args)).toString();
-        }
-        
-        StringBuilder sb = new StringBuilder();
-        if (DataUtils.isNotEmpty(lockNamePre)) {
-            sb.append(lockNamePre);
+    private NebulaDistributedLockPlan getLockPlan(MethodInvocation methodInvocation) {
+        Method method = methodInvocation.getMethod();
+        Class<?> targetClass = methodInvocation.getThis() == null ? null : AopUtils.getTargetClass(methodInvocation.getThis());
+        return lockPlanCache.computeIfAbsent(new MethodClassKey(method, targetClass),
+                key -> new NebulaDistributedLockPlan(findAnnotation(method, targetClass), method));
+    }
+    
+    private NebulaDistributedLock findAnnotation(Method method, Class<?> targetClass) {
+        Method specificMethod = targetClass == null ? method : AopUtils.getMostSpecificMethod(method, targetClass);
+        NebulaDistributedLock annotation = AnnotatedElementUtils.findMergedAnnotation(specificMethod, NebulaDistributedLock.class);
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(specificMethod.getDeclaringClass(), NebulaDistributedLock.class);
         }
-        sb.append(separator);
-        if (DataUtils.isNotEmpty(lockNamePost)) {
-            sb.append(lockNamePost);
+        if (annotation == null) {
+            throw new DistributedLockException("NebulaDistributedLock not found on " + method);
         }
-        return sb.toString();
+        return annotation;
     }
 }
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.aop;
+
+import com.nebula.base.utils.DataUtils;
+import com.nebula.distribute.lock.annotation.NebulaDistributedLock;
+import com.nebula.distribute.lock.core.NebulaDistributedLockTemplate;
+import com.nebula.distribute.lock.enums.LeaseMode;
+import com.nebula.distribute.lock.enums.LockMode;
+import com.nebula.distribute.lock.exception.DistributedLockException;
+import com.nebula.web.common.utils.ExpressionUtil;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import org.springframework.expression.Expression;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * 注解方法的加锁计划，首次调用时解析注解并预编译锁名表达式，之后每次调用只计算表达式的动态部分
+ *
+ * @author : wh
+ * @date : 2024/9/20 14:05
+ * @description:
+ */
+@Getter
+public class NebulaDistributedLockPlan {
+    
+    private final LockMode lockMode;
+    
+    private final boolean tryLock;
+    
+    private final long tryWaitTime;
+    
+    /**
+     * 自动续期时为 {@link NebulaDistributedLockTemplate#AUTO_RENEW_OUT_TIME}
+     */
+    private final long outTime;
+    
+    private final TimeUnit timeUnit;
+    
+    private final boolean multiLock;
+    
+    /**
+     * 方法返回 CompletableFuture 时使用异步锁
+     */
+    private final boolean async;
+    
+    /**
+     * 监控指标使用的锁名模式，取注解原始值，避免按业务id产生大量tag
+     */
+    private final String lockPattern;
+    
+    private final LockNameResolver lockNameResolver;
+    
+    private final LockNamesResolver lockNamesResolver;
+    
+    public NebulaDistributedLockPlan(NebulaDistributedLock annotation, Method method) {
+        this.lockMode = annotation.fairLock() && annotation.lockMode() == LockMode.EXCLUSIVE ? LockMode.FAIR : annotation.lockMode();
+        this.tryLock = annotation.tryLock();
+        this.tryWaitTime = annotation.tryWaitTime();
+        this.outTime = annotation.leaseMode() == LeaseMode.AUTO_RENEW ? NebulaDistributedLockTemplate.AUTO_RENEW_OUT_TIME : annotation.outTime();
+        this.timeUnit = annotation.timeUnit();
+        this.multiLock = annotation.multiLock();
+        boolean completionStage = CompletionStage.class.isAssignableFrom(method.getReturnType());
+        this.async = completionStage && method.getReturnType().isAssignableFrom(CompletableFuture.class);
+        if (completionStage && (multiLock || !async)) {
+            // 同步加锁会在 future 完成前释放锁
+            throw new DistributedLockException("async lock only supports single lock method returning CompletableFuture or CompletionStage: " + method);
+        }
+        if (multiLock && DataUtils.isNotEmpty(annotation.lockName())) {
+            // 多key加锁只使用 lockNamePre + lockNamePost
+            throw new DistributedLockException("multiLock does not support lockName: " + method);
+        }
+        this.lockPattern = DataUtils.isNotEmpty(annotation.lockName()) ? annotation.lockName()
+                : join(annotation.lockNamePre(), annotation.separator(), annotation.lockNamePost());
+        this.lockNameResolver = multiLock ? null
+                : buildLockNameResolver(annotation.lockName(), annotation.lockNamePre(), annotation.lockNamePost(), annotation.separator());
+        this.lockNamesResolver = multiLock ? buildLockNamesResolver(annotation) : null;
+    }
+    
+    /**
+     * 获取锁名字
+     *
+     * @param method 方法
+     * @param args   参数
+     * @return 锁名字
+     */
+    public String lockName(Method method, Object[] args) {
+        return lockNameResolver.resolve(method, args);
+    }
+    
+    /**
+     * 多key加锁时获取排序后的锁名
+     *
+     * @param method 方法
+     * @param args   参数
+     * @return 锁名
+     */
+    public Collection<String> lockNames(Method method, Object[] args) {
+        return lockNamesResolver.resolve(method, args);
+    }
+    
+    /**
+     * 构建锁名解析器，优先使用固定锁名，前后缀为常量时直接拼接，为EL表达式时预编译
+     *
+     * @param lockName     固定锁名
+     * @param lockNamePre  锁前缀
+     * @param lockNamePost 锁后缀
+     * @param separator    分隔符
+     * @return 锁名解析器
+     */
+    public static LockNameResolver buildLockNameResolver(String lockName, String lockNamePre, String lockNamePost, String separator) {
+        if (DataUtils.isNotEmpty(lockName)) {
+            return (method, args) -> lockName;
+        }
+        boolean preEl = ExpressionUtil.isEl(lockNamePre);
+        boolean postEl = ExpressionUtil.isEl(lockNamePost);
+        
+        // 常量锁名
+        if (!preEl && !postEl) {
+            String constantName = join(lockNamePre, separator, lockNamePost);
+            return (method, args) -> constantName;
+        }
+        // 常量前缀 + 后缀表达式
+        if (!preEl) {
+            String prefix = join(lockNamePre, separator, null);
+            Expression postExpression = ExpressionUtil.getExpression(lockNamePost);
+            return (method, args) -> {
+                String post = evaluatePost(postExpression, method, args);
+                return DataUtils.isNotEmpty(post) ? prefix.concat(post) : prefix;
+            };
+        }
+        Expression preExpression = ExpressionUtil.getExpression(lockNamePre);
+        // 前缀表达式 + 常量后缀
+        if (!postEl) {
+            String suffix = join(null, separator, lockNamePost);
+            return (method, args) -> {
+                String pre = evaluatePre(preExpression, method, args);
+                return DataUtils.isNotEmpty(pre) ? pre.concat(suffix) : suffix;
+            };
+        }
+        // 前缀表达式 + 后缀表达式
+        Expression postExpression = ExpressionUtil.getExpression(lockNamePost);
+        return (method, args) -> join(evaluatePre(preExpression, method, args), separator, evaluatePost(postExpression, method, args));
+    }
+    
+    /**
+     * 多key锁名解析器，lockNamePost 表达式返回集合或数组
+     *
+     * @param annotation 注解
+     * @return 锁名解析器
+     */
+    private static LockNamesResolver buildLockNamesResolver(NebulaDistributedLock annotation) {
+        String lockNamePre = annotation.lockNamePre();
+        String lockNamePost = annotation.lockNamePost();
+        String separator = annotation.separator();
+        if (!ExpressionUtil.isEl(lockNamePost)) {
+            throw new DistributedLockException("multiLock lockNamePost must be an expression");
+        }
+        Expression preExpression = ExpressionUtil.isEl(lockNamePre) ? ExpressionUtil.getExpression(lockNamePre) : null;
+        Expression postExpression = ExpressionUtil.getExpression(lockNamePost);
+        return (method, args) -> {
+            String pre = preExpression == null ? lockNamePre : evaluatePre(preExpression, method, args);
+            Object keys = ExpressionUtil.getValue(postExpression, method, args);
+            Set<String> lockNames = new TreeSet<>();
+            for (Object key : toCollection(keys)) {
+                lockNames.add(join(pre, separator, Objects.requireNonNull(key).toString()));
+            }
+            return lockNames;
+        };
+    }
+    
+    private static Collection<?> toCollection(Object keys) {
+        if (keys == null) {
+            return Collections.emptyList();
+        }
+        if (keys instanceof Collection) {
+            return (Collection<?>) keys;
+        }
+        if (keys.getClass().isArray()) {
+            return CollectionUtils.arrayToList(keys);
+        }
+        return Collections.singletonList(keys);
+    }
+    
+    private static String evaluatePre(Expression expression, Method method, Object[] args) {
+        return (String) ExpressionUtil.getValue(expression, method, args);
+    }
+    
+    private static String evaluatePost(Expression expression, Method method, Object[] args) {
+        return Objects.requireNonNull(ExpressionUtil.getValue(expression, method, args)).toString();
+    }
+    
+    private static String join(String lockNamePre, String separator, String lockNamePost) {
+        StringBuilder sb = new StringBuilder();
+        if (DataUtils.isNotEmpty(lockNamePre)) {
+            sb.append(lockNamePre);
+        }
+        sb.append(separator);
+        if (DataUtils.isNotEmpty(lockNamePost)) {
+            sb.append(lockNamePost);
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * 锁名解析器
+     */
+    @FunctionalInterface
+    public interface LockNameResolver {
+        
+        String resolve(Method method, Object[] args);
+    }
+    
+    /**
+     * 多key锁名解析器
+     */
+    @FunctionalInterface
+    public interface LockNamesResolver {
+        
+        Collection<String> resolve(Method method, Object[] args);
+    }
+}
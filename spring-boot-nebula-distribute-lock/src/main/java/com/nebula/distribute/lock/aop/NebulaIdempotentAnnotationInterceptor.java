@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.aop;
+
+import com.nebula.distribute.lock.annotation.NebulaIdempotent;
+import com.nebula.distribute.lock.core.DistributedLock;
+import com.nebula.distribute.lock.core.NebulaDistributedLockTemplate;
+import com.nebula.distribute.lock.enums.LockMode;
+import com.nebula.distribute.lock.exception.DistributedLockException;
+import com.nebula.distribute.lock.idempotent.IdempotentResult;
+import com.nebula.distribute.lock.idempotent.IdempotentResultStore;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+/**
+ * 幂等拦截器，先查缓存结果，未命中时以幂等key加锁后再查一次，仍未命中才执行方法并缓存结果
+ *
+ * @author : wh
+ * @date : 2024/9/30 11:10
+ * @description:
+ */
+@Slf4j
+public class NebulaIdempotentAnnotationInterceptor implements MethodInterceptor {
+    
+    /**
+     * 结果key前缀
+     */
+    public static final String KEY_PREFIX = "nebula:idempotent:";
+    
+    /**
+     * 锁名后缀，与结果key区分
+     */
+    private static final String LOCK_SUFFIX = ":lock";
+    
+    private final NebulaDistributedLockTemplate lock;
+    
+    private final IdempotentResultStore store;
+    
+    private final Map<MethodClassKey, IdempotentPlan> planCache = new ConcurrentHashMap<>();
+    
+    public NebulaIdempotentAnnotationInterceptor(NebulaDistributedLockTemplate lock, IdempotentResultStore store) {
+        this.lock = lock;
+        this.store = store;
+    }
+    
+    @Nullable
+    @Override
+    public Object invoke(@Nonnull MethodInvocation methodInvocation) {
+        Method method = methodInvocation.getMethod();
+        IdempotentPlan plan = getPlan(methodInvocation);
+        String key = KEY_PREFIX + plan.keyResolver.resolve(method, methodInvocation.getArguments());
+        IdempotentResult cached = store.get(key, plan.resultType);
+        if (cached != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("idempotent hit {}", key);
+            }
+            return cached.getValue();
+        }
+        return lock.tryLock(new DistributedLock<>() {
+            
+            @Override
+            public Object process() {
+                // 并发的重复调用拿到锁时首次调用可能已完成
+                IdempotentResult result = store.get(key, plan.resultType);
+                if (result != null) {
+                    return result.getValue();
+                }
+                Object value = proceed(methodInvocation);
+                store.put(key, value, plan.ttl, plan.timeUnit);
+                return value;
+            }
+            
+            @Override
+            public String lockName() {
+                return key + LOCK_SUFFIX;
+            }
+            
+            @Override
+            public String lockPattern() {
+                return plan.keyPattern;
+            }
+        }, plan.waitTime, NebulaDistributedLockTemplate.AUTO_RENEW_OUT_TIME, plan.timeUnit, LockMode.EXCLUSIVE);
+    }
+    
+    public Object proceed(MethodInvocation methodInvocation) {
+        try {
+            return methodInvocation.proceed();
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private IdempotentPlan getPlan(MethodInvocation methodInvocation) {
+        Method method = methodInvocation.getMethod();
+        Class<?> targetClass = methodInvocation.getThis() == null ? null : AopUtils.getTargetClass(methodInvocation.getThis());
+        return planCache.computeIfAbsent(new MethodClassKey(method, targetClass), key -> {
+            Method specificMethod = targetClass == null ? method : AopUtils.getMostSpecificMethod(method, targetClass);
+            NebulaIdempotent annotation = AnnotatedElementUtils.findMergedAnnotation(specificMethod, NebulaIdempotent.class);
+            if (annotation == null) {
+                throw new DistributedLockException("NebulaIdempotent not found on " + method);
+            }
+            if (CompletionStage.class.isAssignableFrom(method.getReturnType())) {
+                throw new DistributedLockException("NebulaIdempotent not support async method " + method);
+            }
+            return new IdempotentPlan(annotation, method);
+        });
+    }
+    
+    /**
+     * 注解解析结果
+     */
+    private static class IdempotentPlan {
+        
+        private final NebulaDistributedLockPlan.LockNameResolver keyResolver;
+        
+        private final String keyPattern;
+        
+        private final Type resultType;
+        
+        private final long ttl;
+        
+        private final long waitTime;
+        
+        private final TimeUnit timeUnit;
+        
+        IdempotentPlan(NebulaIdempotent annotation, Method method) {
+            this.keyResolver = NebulaDistributedLockPlan.buildLockNameResolver(annotation.key(), annotation.keyPre(), annotation.keyPost(),
+                    annotation.separator());
+            this.keyPattern = KEY_PREFIX + (annotation.key().isEmpty() ? annotation.keyPre() + annotation.separator() + annotation.keyPost() : annotation.key());
+            this.resultType = method.getGenericReturnType();
+            this.ttl = annotation.ttl();
+            this.waitTime = annotation.waitTime();
+            this.timeUnit = annotation.timeUnit();
+        }
+    }
+}
@@ -18,27 +18,81 @@
 package com.nebula.distribute.lock.autoconfigure;
 
 import com.nebula.aop.base.NebulaBaseAnnotationAdvisor;
+import com.nebula.base.utils.ThreadFactoryImpl;
 import com.nebula.distribute.lock.annotation.NebulaDistributedLock;
+import com.nebula.distribute.lock.annotation.NebulaIdempotent;
 import com.nebula.distribute.lock.aop.NebulaDistributedLockAnnotationInterceptor;
+import com.nebula.distribute.lock.aop.NebulaIdempotentAnnotationInterceptor;
+import com.nebula.distribute.lock.core.JdbcDistributedLockTemplate;
+import com.nebula.distribute.lock.core.LocalDistributedLockTemplate;
+import com.nebula.distribute.lock.core.LocalStripedDistributedLockTemplate;
+import com.nebula.distribute.lock.core.LockLeaseRenewer;
 import com.nebula.distribute.lock.core.NebulaDistributedLockTemplate;
 import com.nebula.distribute.lock.core.RedissonDistributedLockTemplate;
+import com.nebula.distribute.lock.idempotent.IdempotentResultStore;
+import com.nebula.distribute.lock.idempotent.LocalIdempotentResultStore;
+import com.nebula.distribute.lock.idempotent.RedissonIdempotentResultStore;
+import com.nebula.distribute.lock.metrics.MicrometerDistributedLockTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
 import org.redisson.api.RedissonClient;
 import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
 import org.springframework.core.annotation.Order;
 
 /**
+ * 通过 nebula.distribute.lock.type 选择锁后端
+ *
  * @author : wh
  * @date : 2024/3/15 13:39
  * @description:
  */
 @Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(NebulaDistributedLockProperties.class)
 public class NebulaDistributedLockAutoConfiguration {
     
+    /**
+     * 锁后端 bean 的 qualifier
+     */
+    public static final String BACKEND_QUALIFIER = "nebulaDistributedLockBackend";
+    
+    /**
+     * 异步加锁使用的 {@link Executor} bean 的 qualifier；redisson 后端用于加锁成功后执行业务方法，未配置时使用 ForkJoinPool.commonPool()，
+     * memory/jdbc 后端用于执行阻塞加锁，未配置时按 asyncExecutor 配置创建有界线程池
+     */
+    public static final String ASYNC_EXECUTOR_QUALIFIER = "nebulaDistributedLockAsyncExecutor";
+    
+    /**
+     * 按配置在锁后端外层依次包装本地锁和装饰器
+     */
     @Bean
-    public RedissonDistributedLockTemplate redissonDistributedLockTemplate(RedissonClient redissonClient) {
-        RedissonDistributedLockTemplate template = new RedissonDistributedLockTemplate(redissonClient);
+    @Primary
+    public NebulaDistributedLockTemplate nebulaDistributedLockTemplate(@Qualifier(BACKEND_QUALIFIER) NebulaDistributedLockTemplate backend,
+                                                                       NebulaDistributedLockProperties properties,
+                                                                       ObjectProvider<NebulaDistributedLockTemplateDecorator> decorators) {
+        NebulaDistributedLockTemplate template = backend;
+        if (properties.getLocalStripe().isEnabled()) {
+            template = new LocalStripedDistributedLockTemplate(template);
+        }
+        for (NebulaDistributedLockTemplateDecorator decorator : decorators.orderedStream().collect(Collectors.toList())) {
+            template = decorator.decorate(template);
+        }
         return template;
     }
     
@@ -49,4 +103,105 @@ public class NebulaDistributedLockAutoConfiguration {
         return new NebulaBaseAnnotationAdvisor(advisor, NebulaDistributedLock.class);
     }
     
+    /**
+     * 幂等切面在分布式锁切面外层，jdbc 后端需自行提供 IdempotentResultStore
+     */
+    @Bean
+    @ConditionalOnBean(IdempotentResultStore.class)
+    public Advisor idempotentAnnotationAdvisor(NebulaDistributedLockTemplate nebulaDistributedLockTemplate, IdempotentResultStore idempotentResultStore) {
+        NebulaIdempotentAnnotationInterceptor interceptor = new NebulaIdempotentAnnotationInterceptor(nebulaDistributedLockTemplate, idempotentResultStore);
+        NebulaBaseAnnotationAdvisor advisor = new NebulaBaseAnnotationAdvisor(interceptor, NebulaIdempotent.class);
+        advisor.setOrder(0);
+        return advisor;
+    }
+    
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnProperty(prefix = NebulaDistributedLockProperties.PREFIX, name = "metrics.enabled", havingValue = "true", matchIfMissing = true)
+    static class MetricsConfiguration {
+        
+        @Bean
+        public NebulaDistributedLockTemplateDecorator micrometerDistributedLockTemplateDecorator(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                                                 NebulaDistributedLockProperties properties) {
+            return template -> {
+                MeterRegistry registry = meterRegistry.getIfAvailable();
+                return registry == null ? template
+                        : new MicrometerDistributedLockTemplate(template, registry, properties.getMetrics().isPercentileHistogram());
+            };
+        }
+    }
+    
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = NebulaDistributedLockProperties.PREFIX, name = "type", havingValue = NebulaDistributedLockProperties.TYPE_REDISSON, matchIfMissing = true)
+    static class RedissonLockConfiguration {
+        
+        @Bean(destroyMethod = "shutdown")
+        public LockLeaseRenewer lockLeaseRenewer(NebulaDistributedLockProperties properties) {
+            NebulaDistributedLockProperties.Watchdog watchdog = properties.getWatchdog();
+            return new LockLeaseRenewer(watchdog.getRenewInterval().toMillis(), watchdog.getLeaseTime().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        
+        @Bean
+        @Qualifier(BACKEND_QUALIFIER)
+        public RedissonDistributedLockTemplate redissonDistributedLockTemplate(RedissonClient redissonClient, LockLeaseRenewer lockLeaseRenewer,
+                                                                               @Qualifier(ASYNC_EXECUTOR_QUALIFIER) ObjectProvider<Executor> asyncExecutor) {
+            return new RedissonDistributedLockTemplate(redissonClient, lockLeaseRenewer, asyncExecutor.getIfAvailable(ForkJoinPool::commonPool));
+        }
+        
+        @Bean
+        @ConditionalOnMissingBean
+        public IdempotentResultStore redissonIdempotentResultStore(RedissonClient redissonClient) {
+            return new RedissonIdempotentResultStore(redissonClient);
+        }
+    }
+    
+    /**
+     * memory/jdbc 后端每个异步锁会占用一个线程直到业务 future 完成，默认线程池有界，随容器关闭
+     */
+    @Configuration(proxyBeanMethods = false)
+    static class BlockingAsyncExecutorConfiguration {
+        
+        @Bean(name = ASYNC_EXECUTOR_QUALIFIER, destroyMethod = "shutdown")
+        @ConditionalOnMissingBean(name = ASYNC_EXECUTOR_QUALIFIER)
+        public ThreadPoolExecutor nebulaDistributedLockAsyncExecutor(NebulaDistributedLockProperties properties) {
+            NebulaDistributedLockProperties.AsyncExecutor asyncExecutor = properties.getAsyncExecutor();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(asyncExecutor.getMaxThreads(), asyncExecutor.getMaxThreads(), 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(asyncExecutor.getQueueCapacity()), new ThreadFactoryImpl("nebula-lock-async-", true));
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+    
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = NebulaDistributedLockProperties.PREFIX, name = "type", havingValue = NebulaDistributedLockProperties.TYPE_MEMORY)
+    @Import(BlockingAsyncExecutorConfiguration.class)
+    static class MemoryLockConfiguration {
+        
+        @Bean
+        @Qualifier(BACKEND_QUALIFIER)
+        public LocalDistributedLockTemplate localDistributedLockTemplate(NebulaDistributedLockProperties properties,
+                                                                         @Qualifier(ASYNC_EXECUTOR_QUALIFIER) Executor asyncExecutor) {
+            return new LocalDistributedLockTemplate(properties.getMemory().getStripes(), asyncExecutor);
+        }
+        
+        @Bean
+        @ConditionalOnMissingBean
+        public IdempotentResultStore localIdempotentResultStore() {
+            return new LocalIdempotentResultStore();
+        }
+    }
+    
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = NebulaDistributedLockProperties.PREFIX, name = "type", havingValue = NebulaDistributedLockProperties.TYPE_JDBC)
+    @Import(BlockingAsyncExecutorConfiguration.class)
+    static class JdbcLockConfiguration {
+        
+        @Bean
+        @Qualifier(BACKEND_QUALIFIER)
+        public JdbcDistributedLockTemplate jdbcDistributedLockTemplate(DataSource dataSource, NebulaDistributedLockProperties properties,
+                                                                       @Qualifier(ASYNC_EXECUTOR_QUALIFIER) Executor asyncExecutor) {
+            return new JdbcDistributedLockTemplate(dataSource, properties.getJdbc().getTableName(), asyncExecutor);
+        }
+    }
+    
 }
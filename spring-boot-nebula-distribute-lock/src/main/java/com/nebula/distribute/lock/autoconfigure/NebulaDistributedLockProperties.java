@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.autoconfigure;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author : wh
+ * @date : 2024/9/25 11:05
+ * @description:
+ */
+@ConfigurationProperties(prefix = NebulaDistributedLockProperties.PREFIX)
+@Data
+public class NebulaDistributedLockProperties {
+    
+    public static final String PREFIX = "nebula.distribute.lock";
+    
+    public static final String TYPE_REDISSON = "redisson";
+    
+    public static final String TYPE_MEMORY = "memory";
+    
+    public static final String TYPE_JDBC = "jdbc";
+    
+    /**
+     * 锁后端 redisson/memory/jdbc，默认 redisson
+     */
+    private String type = TYPE_REDISSON;
+    
+    /**
+     * JVM内存锁
+     */
+    private Memory memory = new Memory();
+    
+    /**
+     * 数据库行锁
+     */
+    private Jdbc jdbc = new Jdbc();
+    
+    /**
+     * 本地锁
+     */
+    private LocalStripe localStripe = new LocalStripe();
+    
+    /**
+     * 自动续期看门狗
+     */
+    private Watchdog watchdog = new Watchdog();
+    
+    /**
+     * 监控指标
+     */
+    private Metrics metrics = new Metrics();
+    
+    /**
+     * memory/jdbc 后端执行异步加锁的线程池，未提供 nebulaDistributedLockAsyncExecutor 时生效
+     */
+    private AsyncExecutor asyncExecutor = new AsyncExecutor();
+    
+    @Data
+    public static class LocalStripe {
+        
+        /**
+         * 是否在分布式锁前加本地锁
+         */
+        private boolean enabled = false;
+    }
+    
+    @Data
+    public static class Memory {
+        
+        /**
+         * 分段数
+         */
+        private int stripes = 256;
+    }
+    
+    @Data
+    public static class Jdbc {
+        
+        /**
+         * 锁表名
+         */
+        private String tableName = "nebula_distributed_lock";
+    }
+    
+    @Data
+    public static class Watchdog {
+        
+        /**
+         * 续期间隔
+         */
+        private Duration renewInterval = Duration.ofSeconds(10);
+        
+        /**
+         * 每次续期的租期，需大于续期间隔
+         */
+        private Duration leaseTime = Duration.ofSeconds(30);
+    }
+    
+    @Data
+    public static class AsyncExecutor {
+        
+        /**
+         * 最大线程数，即同时等待或持有的异步锁上限
+         */
+        private int maxThreads = 64;
+        
+        /**
+         * 等待队列容量，队列满后异步加锁直接失败
+         */
+        private int queueCapacity = 1024;
+    }
+    
+    @Data
+    public static class Metrics {
+        
+        /**
+         * 存在 MeterRegistry 时是否开启锁监控
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 获取锁耗时是否发布直方图
+         */
+        private boolean percentileHistogram = true;
+    }
+}
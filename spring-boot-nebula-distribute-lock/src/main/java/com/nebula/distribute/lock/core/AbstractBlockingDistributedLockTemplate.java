@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.core;
+
+import com.nebula.distribute.lock.enums.LockMode;
+import com.nebula.distribute.lock.exception.DistributedLockException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 只有阻塞加锁能力的锁后端基类，异步加锁在构造时传入的线程池中执行阻塞加锁
+ * <p>
+ * 与 redisson 后端不同，每个等待中或持有中的异步锁都会占用线程池中的一个线程，直到业务 future 完成，只是不占用调用线程；
+ * 线程池需有界并由调用方管理生命周期，线程池拒绝时 future 以 DistributedLockException 结束
+ *
+ * @author : wh
+ * @date : 2024/9/27 10:12
+ * @description:
+ */
+public abstract class AbstractBlockingDistributedLockTemplate implements NebulaDistributedLockTemplate {
+    
+    private final Executor asyncExecutor;
+    
+    /**
+     * @param asyncExecutor 执行异步加锁的线程池，每个异步锁从等待加锁到业务 future 完成占用其中一个线程
+     */
+    protected AbstractBlockingDistributedLockTemplate(Executor asyncExecutor) {
+        this.asyncExecutor = Objects.requireNonNull(asyncExecutor, "asyncExecutor");
+    }
+    
+    @Override
+    public <T> CompletableFuture<T> lockAsync(AsyncDistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        return supplyAsync(() -> lock(toBlocking(distributedLock), outTime, timeUnit, lockMode));
+    }
+    
+    @Override
+    public <T> CompletableFuture<T> tryLockAsync(AsyncDistributedLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit,
+                                                 LockMode lockMode) {
+        return supplyAsync(() -> tryLock(toBlocking(distributedLock), tryOutTime, outTime, timeUnit, lockMode));
+    }
+    
+    /**
+     * 线程池拒绝时尚未加锁，直接以 lock fail 结束
+     */
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, asyncExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new DistributedLockException("lock fail", e));
+        }
+    }
+    
+    /**
+     * 持有锁直到 future 完成
+     */
+    private <T> DistributedLock<T> toBlocking(AsyncDistributedLock<T> distributedLock) {
+        return new DistributedLock<>() {
+            
+            @Override
+            public T process() {
+                return distributedLock.process().join();
+            }
+            
+            @Override
+            public String lockName() {
+                return distributedLock.lockName();
+            }
+            
+            @Override
+            public String lockPattern() {
+                return distributedLock.lockPattern();
+            }
+        };
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.core;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author : wh
+ * @date : 2024/9/26 10:08
+ * @description: 异步分布式锁，锁在 process 返回的 future 完成后释放
+ */
+public interface AsyncDistributedLock<T> {
+    
+    /**
+     * 分布式锁逻辑 代码块，在获取锁的回调线程中执行，不应阻塞
+     */
+    CompletableFuture<T> process();
+    
+    String lockName();
+    
+    /**
+     * 监控指标使用的锁名模式，需按锁区分指标时重写为不含业务id的固定值，如 order_#id
+     */
+    default String lockPattern() {
+        return DistributedLock.PROGRAMMATIC_PATTERN;
+    }
+}
@@ -24,10 +24,22 @@ package com.nebula.distribute.lock.core;
  */
 public interface DistributedLock<T> {
     
+    /**
+     * 未指定锁名模式时的默认值，编程式加锁的锁名通常带业务id，不能直接作为指标tag
+     */
+    String PROGRAMMATIC_PATTERN = "programmatic";
+    
     /**
      * 分布式锁逻辑 代码块
      */
     T process();
     
     String lockName();
+    
+    /**
+     * 监控指标使用的锁名模式，需按锁区分指标时重写为不含业务id的固定值，如 order_#id
+     */
+    default String lockPattern() {
+        return PROGRAMMATIC_PATTERN;
+    }
 }
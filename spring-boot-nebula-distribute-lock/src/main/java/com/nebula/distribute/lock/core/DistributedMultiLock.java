@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.core;
+
+import java.util.Collection;
+
+/**
+ * @author : wh
+ * @date : 2024/9/23 10:15
+ * @description: 多key分布式锁
+ */
+public interface DistributedMultiLock<T> {
+    
+    /**
+     * 分布式锁逻辑 代码块
+     */
+    T process();
+    
+    /**
+     * 需要同时加锁的锁名
+     */
+    Collection<String> lockNames();
+    
+    /**
+     * 监控指标使用的锁名模式
+     */
+    default String lockPattern() {
+        return "multi";
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.core;
+
+import com.nebula.distribute.lock.enums.LockMode;
+import com.nebula.distribute.lock.exception.DistributedLockException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Savepoint;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于数据库行锁的分布式锁，复用应用已有的 DataSource
+ * <p>
+ * 加锁时在独立连接上开启事务并 select ... for update 锁住锁名对应的行，行不存在时插入；业务执行完成后在同一事务中删除该行并提交，
+ * 锁表只保留正在持有的锁，连接断开时数据库自动释放锁。行锁无法按 outTime 自动过期，锁会一直持有到业务执行结束；READ 模式按写锁处理
+ * <p>
+ * 并发首次创建同一行时部分数据库（如 MySQL 的间隙锁）会检测到死锁并回滚事务，此时回滚后重新加锁全部锁名
+ * <pre>
+ * CREATE TABLE nebula_distributed_lock (
+ *     lock_name VARCHAR(255) NOT NULL PRIMARY KEY
+ * );
+ * </pre>
+ *
+ * @author : wh
+ * @date : 2024/9/27 14:20
+ * @description:
+ */
+@Slf4j
+public class JdbcDistributedLockTemplate extends AbstractBlockingDistributedLockTemplate {
+    
+    private static final int NO_TIMEOUT = 0;
+    
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+    
+    /**
+     * 死锁或序列化失败，事务已被数据库回滚
+     */
+    private static final String DEADLOCK_SQL_STATE = "40001";
+    
+    private final DataSource dataSource;
+    
+    private final String selectForUpdateSql;
+    
+    private final String insertSql;
+    
+    private final String deleteSql;
+    
+    /**
+     * @param dataSource    数据源
+     * @param tableName     锁表名
+     * @param asyncExecutor 执行异步加锁的有界线程池
+     */
+    public JdbcDistributedLockTemplate(DataSource dataSource, String tableName, Executor asyncExecutor) {
+        super(asyncExecutor);
+        this.dataSource = dataSource;
+        this.selectForUpdateSql = "SELECT lock_name FROM " + tableName + " WHERE lock_name = ? FOR UPDATE";
+        this.insertSql = "INSERT INTO " + tableName + " (lock_name) VALUES (?)";
+        this.deleteSql = "DELETE FROM " + tableName + " WHERE lock_name = ?";
+    }
+    
+    @Override
+    public <T> T lock(DistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        return execute(Collections.singleton(distributedLock.lockName()), NO_TIMEOUT, distributedLock::process);
+    }
+    
+    @Override
+    public <T> T tryLock(DistributedLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        return execute(Collections.singleton(distributedLock.lockName()), toTimeoutSeconds(tryOutTime, timeUnit), distributedLock::process);
+    }
+    
+    @Override
+    public <T> T multiLock(DistributedMultiLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        return execute(distributedLock.lockNames(), NO_TIMEOUT, distributedLock::process);
+    }
+    
+    @Override
+    public <T> T tryMultiLock(DistributedMultiLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        return execute(distributedLock.lockNames(), toTimeoutSeconds(tryOutTime, timeUnit), distributedLock::process);
+    }
+    
+    /**
+     * 加锁失败抛出 lock fail；业务异常原样抛出，此时释放锁失败作为 suppressed 异常；业务成功但释放锁失败抛出 lock release fail
+     */
+    private <T> T execute(Collection<String> lockNames, int timeoutSeconds, Supplier<T> processor) {
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new DistributedLockException("lock fail", e);
+        }
+        boolean autoCommit = true;
+        try {
+            try {
+                autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                lockRows(connection, new TreeSet<>(lockNames), timeoutSeconds);
+            } catch (SQLException e) {
+                rollbackQuietly(connection);
+                if (LockLogSampler.sample(log)) {
+                    log.debug("can not acquire lock {}", lockNames, e);
+                }
+                throw new DistributedLockException("lock fail", e);
+            }
+            T result;
+            try {
+                result = processor.get();
+            } catch (Throwable e) {
+                try {
+                    release(connection, lockNames);
+                } catch (SQLException releaseException) {
+                    e.addSuppressed(releaseException);
+                }
+                throw e;
+            }
+            try {
+                release(connection, lockNames);
+            } catch (SQLException e) {
+                throw new DistributedLockException("lock release fail " + lockNames, e);
+            }
+            return result;
+        } finally {
+            closeQuietly(connection, autoCommit);
+        }
+    }
+    
+    /**
+     * 恢复 autoCommit 并归还连接，失败只记录日志，不覆盖业务结果或异常；连接关闭时数据库会释放行锁
+     */
+    private void closeQuietly(Connection connection, boolean autoCommit) {
+        try {
+            connection.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            log.warn("restore lock connection autoCommit fail", e);
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.warn("close lock connection fail", e);
+        }
+    }
+    
+    /**
+     * 排序后逐行加锁，避免死锁；数据库检测到死锁回滚事务后，已加的行锁全部丢失，回滚后重新加锁
+     */
+    private void lockRows(Connection connection, Collection<String> sortedLockNames, int timeoutSeconds) throws SQLException {
+        long deadline = timeoutSeconds == NO_TIMEOUT ? NO_DEADLINE : System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (true) {
+            try {
+                for (String lockName : sortedLockNames) {
+                    lockRow(connection, lockName, timeoutSeconds, deadline);
+                }
+                return;
+            } catch (SQLException e) {
+                if (!DEADLOCK_SQL_STATE.equals(e.getSQLState())) {
+                    throw e;
+                }
+                connection.rollback();
+                checkDeadline(deadline, sortedLockNames);
+            }
+        }
+    }
+    
+    /**
+     * 锁名对应的行不存在时插入，插入的行由当前事务持有；并发插入导致主键冲突时回滚到保存点后重新加锁，
+     * 其间行可能又被持有者删除，因此循环直到锁住已有行或插入成功
+     */
+    private void lockRow(Connection connection, String lockName, int timeoutSeconds, long deadline) throws SQLException {
+        while (true) {
+            if (selectForUpdate(connection, lockName, timeoutSeconds)) {
+                return;
+            }
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement ps = connection.prepareStatement(insertSql)) {
+                ps.setQueryTimeout(timeoutSeconds);
+                ps.setString(1, lockName);
+                ps.executeUpdate();
+                return;
+            } catch (SQLException e) {
+                if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                    throw e;
+                }
+                connection.rollback(savepoint);
+            }
+            checkDeadline(deadline, lockName);
+        }
+    }
+    
+    private void checkDeadline(long deadline, Object lockName) throws SQLTimeoutException {
+        if (deadline != NO_DEADLINE && deadline - System.nanoTime() <= 0) {
+            throw new SQLTimeoutException("lock timeout " + lockName);
+        }
+    }
+    
+    /**
+     * 删除锁行后提交，提交前其他事务看不到删除，提交后等待中的事务重新插入
+     */
+    private void release(Connection connection, Collection<String> lockNames) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(deleteSql)) {
+            for (String lockName : new TreeSet<>(lockNames)) {
+                ps.setString(1, lockName);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } catch (SQLException e) {
+            // 删除失败时仍提交释放行锁，行保留到下次加锁
+            try {
+                connection.commit();
+            } catch (SQLException commitException) {
+                e.addSuppressed(commitException);
+            }
+            throw e;
+        }
+        connection.commit();
+    }
+    
+    private boolean selectForUpdate(Connection connection, String lockName, int timeoutSeconds) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(selectForUpdateSql)) {
+            ps.setQueryTimeout(timeoutSeconds);
+            ps.setString(1, lockName);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+    
+    private void rollbackQuietly(Connection connection) {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            log.warn("rollback lock transaction fail", e);
+        }
+    }
+    
+    private int toTimeoutSeconds(long tryOutTime, TimeUnit timeUnit) {
+        return (int) Math.max(1L, Math.min(Integer.MAX_VALUE, timeUnit.toSeconds(tryOutTime)));
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.core;
+
+import com.nebula.distribute.lock.enums.LockMode;
+import com.nebula.distribute.lock.exception.DistributedLockException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JVM内存锁，适用于单节点部署或测试环境
+ * <p>
+ * 锁状态保存在 ConcurrentHashMap 中，按锁名hash分段加监视器锁；支持锁超时自动释放、可重入与读写锁，FAIR 按 EXCLUSIVE 处理
+ * <p>
+ * outTime 为 {@link #AUTO_RENEW_OUT_TIME} 时锁不过期，持有到业务执行结束，与自动续期效果一致
+ *
+ * @author : wh
+ * @date : 2024/9/27 10:30
+ * @description:
+ */
+@Slf4j
+public class LocalDistributedLockTemplate extends AbstractBlockingDistributedLockTemplate {
+    
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+    
+    private final Object[] monitors;
+    
+    private final int mask;
+    
+    private final Map<String, LeaseState> states = new ConcurrentHashMap<>();
+    
+    /**
+     * @param stripes       分段数
+     * @param asyncExecutor 执行异步加锁的有界线程池
+     */
+    public LocalDistributedLockTemplate(int stripes, Executor asyncExecutor) {
+        super(asyncExecutor);
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+        this.monitors = new Object[size];
+        for (int i = 0; i < size; i++) {
+            monitors[i] = new Object();
+        }
+        this.mask = size - 1;
+    }
+    
+    @Override
+    public <T> T lock(DistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        String lockName = distributedLock.lockName();
+        long owner = Thread.currentThread().getId();
+        acquireOrFail(lockName, owner, lockMode, NO_DEADLINE, timeUnit.toNanos(outTime));
+        try {
+            return distributedLock.process();
+        } finally {
+            release(lockName, owner, lockMode);
+        }
+    }
+    
+    @Override
+    public <T> T tryLock(DistributedLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        String lockName = distributedLock.lockName();
+        long owner = Thread.currentThread().getId();
+        acquireOrFail(lockName, owner, lockMode, System.nanoTime() + timeUnit.toNanos(tryOutTime), timeUnit.toNanos(outTime));
+        try {
+            return distributedLock.process();
+        } finally {
+            release(lockName, owner, lockMode);
+        }
+    }
+    
+    @Override
+    public <T> T multiLock(DistributedMultiLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        return multiLock(distributedLock, NO_DEADLINE, timeUnit.toNanos(outTime), lockMode);
+    }
+    
+    @Override
+    public <T> T tryMultiLock(DistributedMultiLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        return multiLock(distributedLock, System.nanoTime() + timeUnit.toNanos(tryOutTime), timeUnit.toNanos(outTime), lockMode);
+    }
+    
+    private <T> T multiLock(DistributedMultiLock<T> distributedLock, long deadline, long leaseNanos, LockMode lockMode) {
+        long owner = Thread.currentThread().getId();
+        List<String> acquired = new ArrayList<>();
+        try {
+            // 排序后加锁，避免死锁
+            for (String lockName : new TreeSet<>(distributedLock.lockNames())) {
+                acquireOrFail(lockName, owner, lockMode, deadline, leaseNanos);
+                acquired.add(lockName);
+            }
+            return distributedLock.process();
+        } finally {
+            for (int i = acquired.size() - 1; i >= 0; i--) {
+                release(acquired.get(i), owner, lockMode);
+            }
+        }
+    }
+    
+    private void acquireOrFail(String lockName, long owner, LockMode lockMode, long deadline, long leaseNanos) {
+        try {
+            if (acquire(lockName, owner, lockMode == LockMode.READ, deadline, leaseNanos)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("锁中断...");
+        }
+        if (LockLogSampler.sample(log)) {
+            log.debug("can not acquire lock {}", lockName);
+        }
+        throw new DistributedLockException("lock fail");
+    }
+    
+    private boolean acquire(String lockName, long owner, boolean read, long deadline, long leaseNanos) throws InterruptedException {
+        Object monitor = monitor(lockName);
+        synchronized (monitor) {
+            while (true) {
+                long now = System.nanoTime();
+                LeaseState state = states.computeIfAbsent(lockName, k -> new LeaseState());
+                state.purgeExpired(now);
+                if (state.tryAcquire(owner, read, leaseNanos > 0 ? now + leaseNanos : LeaseState.NEVER_EXPIRE)) {
+                    return true;
+                }
+                long remaining = deadline == NO_DEADLINE ? Long.MAX_VALUE : deadline - now;
+                if (remaining <= 0) {
+                    return false;
+                }
+                // 等待锁释放或持有者租约到期
+                long nextExpireAt = state.nextExpireAt();
+                long waitNanos = nextExpireAt == LeaseState.NEVER_EXPIRE ? remaining : Math.min(remaining, nextExpireAt - now);
+                TimeUnit.NANOSECONDS.timedWait(monitor, Math.max(1L, waitNanos));
+            }
+        }
+    }
+    
+    private void release(String lockName, long owner, LockMode lockMode) {
+        Object monitor = monitor(lockName);
+        synchronized (monitor) {
+            LeaseState state = states.get(lockName);
+            if (state == null) {
+                log.warn("lock already released {}", lockName);
+                return;
+            }
+            state.purgeExpired(System.nanoTime());
+            if (!state.release(owner, lockMode == LockMode.READ)) {
+                // 锁已超时释放
+                log.warn("lock already released {}", lockName);
+            }
+            if (state.isFree()) {
+                states.remove(lockName);
+            }
+            monitor.notifyAll();
+        }
+    }
+    
+    private Object monitor(String lockName) {
+        int h = lockName.hashCode();
+        return monitors[(h ^ (h >>> 16)) & mask];
+    }
+    
+    /**
+     * 单个锁名的持有状态，所有访问都在分段监视器内
+     */
+    private static final class LeaseState {
+        
+        private static final long NO_OWNER = -1L;
+        
+        /**
+         * outTime <= 0 时不自动释放
+         */
+        private static final long NEVER_EXPIRE = Long.MAX_VALUE;
+        
+        private long writer = NO_OWNER;
+        
+        private int writeHolds;
+        
+        private long writeExpireAt;
+        
+        /**
+         * owner -> [重入次数, 租约到期时间]
+         */
+        private final Map<Long, long[]> readers = new HashMap<>(4);
+        
+        boolean tryAcquire(long owner, boolean read, long expireAt) {
+            if (read) {
+                if (writer != NO_OWNER && writer != owner) {
+                    return false;
+                }
+                long[] hold = readers.computeIfAbsent(owner, k -> new long[2]);
+                hold[0]++;
+                hold[1] = expireAt;
+                return true;
+            }
+            if (writer != NO_OWNER && writer != owner) {
+                return false;
+            }
+            if (!readers.isEmpty() && !(readers.size() == 1 && readers.containsKey(owner))) {
+                return false;
+            }
+            writer = owner;
+            writeHolds++;
+            writeExpireAt = expireAt;
+            return true;
+        }
+        
+        boolean release(long owner, boolean read) {
+            if (read) {
+                long[] hold = readers.get(owner);
+                if (hold == null) {
+                    return false;
+                }
+                if (--hold[0] == 0) {
+                    readers.remove(owner);
+                }
+                return true;
+            }
+            if (writer != owner) {
+                return false;
+            }
+            if (--writeHolds == 0) {
+                writer = NO_OWNER;
+            }
+            return true;
+        }
+        
+        void purgeExpired(long now) {
+            if (writer != NO_OWNER && expired(writeExpireAt, now)) {
+                writer = NO_OWNER;
+                writeHolds = 0;
+            }
+            if (!readers.isEmpty()) {
+                readers.values().removeIf(hold -> expired(hold[1], now));
+            }
+        }
+        
+        private static boolean expired(long expireAt, long now) {
+            return expireAt != NEVER_EXPIRE && expireAt - now <= 0;
+        }
+        
+        long nextExpireAt() {
+            long next = writer != NO_OWNER ? writeExpireAt : NEVER_EXPIRE;
+            for (long[] hold : readers.values()) {
+                if (next == NEVER_EXPIRE || (hold[1] != NEVER_EXPIRE && hold[1] - next < 0)) {
+                    next = hold[1];
+                }
+            }
+            return next;
+        }
+        
+        boolean isFree() {
+            return writer == NO_OWNER && readers.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.core;
+
+import com.nebula.distribute.lock.enums.LockMode;
+import com.nebula.distribute.lock.exception.DistributedLockException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 本地锁 + 分布式锁两级加锁，同一个JVM内同一个锁名只放行一个线程去竞争分布式锁，减少热点key下对redis的请求
+ * <p>
+ * 本地锁按锁名精确区分并按引用计数回收，不同锁名之间互不影响；FAIR 模式不经过本地锁，保证全局公平
+ *
+ * @author : wh
+ * @date : 2024/9/25 10:20
+ * @description:
+ */
+@Slf4j
+public class LocalStripedDistributedLockTemplate implements NebulaDistributedLockTemplate {
+    
+    private final NebulaDistributedLockTemplate delegate;
+    
+    /**
+     * 锁名 -> 本地读写锁，没有线程持有或等待时移除
+     */
+    private final Map<String, LocalLock> localLocks = new ConcurrentHashMap<>();
+    
+    public LocalStripedDistributedLockTemplate(NebulaDistributedLockTemplate delegate) {
+        this.delegate = delegate;
+    }
+    
+    @Override
+    public <T> T lock(DistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        if (lockMode == LockMode.FAIR) {
+            return delegate.lock(distributedLock, outTime, timeUnit, lockMode);
+        }
+        String lockName = distributedLock.lockName();
+        LocalLock localLock = retain(lockName);
+        try {
+            Lock lock = localLock.get(lockMode);
+            lock.lock();
+            try {
+                return delegate.lock(distributedLock, outTime, timeUnit, lockMode);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            release(lockName);
+        }
+    }
+    
+    @Override
+    public <T> T tryLock(DistributedLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        if (lockMode == LockMode.FAIR) {
+            return delegate.tryLock(distributedLock, tryOutTime, outTime, timeUnit, lockMode);
+        }
+        long deadline = System.nanoTime() + timeUnit.toNanos(tryOutTime);
+        String lockName = distributedLock.lockName();
+        LocalLock localLock = retain(lockName);
+        try {
+            Lock lock = localLock.get(lockMode);
+            tryLocalLock(lock, tryOutTime, timeUnit, lockName);
+            try {
+                return delegate.tryLock(distributedLock, remaining(deadline, timeUnit), outTime, timeUnit, lockMode);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            release(lockName);
+        }
+    }
+    
+    @Override
+    public <T> T multiLock(DistributedMultiLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        if (lockMode == LockMode.FAIR) {
+            return delegate.multiLock(distributedLock, outTime, timeUnit, lockMode);
+        }
+        List<String> lockNames = new ArrayList<>(new TreeSet<>(distributedLock.lockNames()));
+        List<Lock> acquired = new ArrayList<>(lockNames.size());
+        int retained = 0;
+        try {
+            // 排序后加锁，避免死锁
+            for (String lockName : lockNames) {
+                Lock lock = retain(lockName).get(lockMode);
+                retained++;
+                lock.lock();
+                acquired.add(lock);
+            }
+            return delegate.multiLock(distributedLock, outTime, timeUnit, lockMode);
+        } finally {
+            unlockAll(acquired);
+            releaseAll(lockNames, retained);
+        }
+    }
+    
+    @Override
+    public <T> T tryMultiLock(DistributedMultiLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        if (lockMode == LockMode.FAIR) {
+            return delegate.tryMultiLock(distributedLock, tryOutTime, outTime, timeUnit, lockMode);
+        }
+        long deadline = System.nanoTime() + timeUnit.toNanos(tryOutTime);
+        List<String> lockNames = new ArrayList<>(new TreeSet<>(distributedLock.lockNames()));
+        List<Lock> acquired = new ArrayList<>(lockNames.size());
+        int retained = 0;
+        try {
+            for (String lockName : lockNames) {
+                Lock lock = retain(lockName).get(lockMode);
+                retained++;
+                tryLocalLock(lock, remaining(deadline, timeUnit), timeUnit, lockNames);
+                acquired.add(lock);
+            }
+            return delegate.tryMultiLock(distributedLock, remaining(deadline, timeUnit), outTime, timeUnit, lockMode);
+        } finally {
+            unlockAll(acquired);
+            releaseAll(lockNames, retained);
+        }
+    }
+    
+    /**
+     * 本地锁与线程绑定，异步加锁直接使用分布式锁
+     */
+    @Override
+    public <T> CompletableFuture<T> lockAsync(AsyncDistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        return delegate.lockAsync(distributedLock, outTime, timeUnit, lockMode);
+    }
+    
+    @Override
+    public <T> CompletableFuture<T> tryLockAsync(AsyncDistributedLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit,
+                                                 LockMode lockMode) {
+        return delegate.tryLockAsync(distributedLock, tryOutTime, outTime, timeUnit, lockMode);
+    }
+    
+    /**
+     * 引用计数加一，在 compute 中完成，与 release 的移除互斥
+     */
+    private LocalLock retain(String lockName) {
+        return localLocks.compute(lockName, (k, localLock) -> {
+            LocalLock retained = localLock == null ? new LocalLock() : localLock;
+            retained.references++;
+            return retained;
+        });
+    }
+    
+    private void release(String lockName) {
+        localLocks.computeIfPresent(lockName, (k, localLock) -> --localLock.references == 0 ? null : localLock);
+    }
+    
+    private void releaseAll(List<String> lockNames, int retained) {
+        for (int i = retained - 1; i >= 0; i--) {
+            release(lockNames.get(i));
+        }
+    }
+    
+    private void tryLocalLock(Lock localLock, long tryOutTime, TimeUnit timeUnit, Object lockName) {
+        try {
+            if (localLock.tryLock(tryOutTime, timeUnit)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("锁中断...");
+        }
+        if (LockLogSampler.sample(log)) {
+            log.debug("can not acquire local lock {}", lockName);
+        }
+        throw new DistributedLockException("lock fail");
+    }
+    
+    private void unlockAll(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+    
+    private long remaining(long deadline, TimeUnit timeUnit) {
+        return Math.max(0L, timeUnit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+    }
+    
+    /**
+     * 单个锁名的本地读写锁，references 只在 localLocks 的 compute 中读写
+     */
+    private static final class LocalLock {
+        
+        private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+        
+        private int references;
+        
+        Lock get(LockMode lockMode) {
+            return lockMode == LockMode.READ ? readWriteLock.readLock() : readWriteLock.writeLock();
+        }
+    }
+}
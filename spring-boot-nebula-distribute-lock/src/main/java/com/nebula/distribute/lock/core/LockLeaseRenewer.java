@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.core;
+
+import com.nebula.base.utils.ThreadFactoryImpl;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 锁续期看门狗，JVM 内所有自动续期的锁共用一个调度线程，每个续期周期批量发起异步续期，不为每个锁单独创建定时器
+ *
+ * @author : wh
+ * @date : 2024/9/29 10:20
+ * @description:
+ */
+@Slf4j
+public class LockLeaseRenewer {
+    
+    /**
+     * 每次续期的租期，毫秒
+     */
+    @Getter
+    private final long leaseTime;
+    
+    private final Set<Renewal> renewals = ConcurrentHashMap.newKeySet();
+    
+    private final ScheduledExecutorService scheduler;
+    
+    /**
+     * @param renewInterval 续期间隔
+     * @param leaseTime     每次续期的租期，需大于续期间隔
+     * @param timeUnit      时间单位
+     */
+    public LockLeaseRenewer(long renewInterval, long leaseTime, TimeUnit timeUnit) {
+        if (renewInterval <= 0 || leaseTime <= renewInterval) {
+            throw new IllegalArgumentException("leaseTime must be greater than renewInterval");
+        }
+        this.leaseTime = timeUnit.toMillis(leaseTime);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryImpl("nebula-lock-renewal-", true));
+        this.scheduler.scheduleAtFixedRate(this::renewAll, renewInterval, renewInterval, timeUnit);
+    }
+    
+    /**
+     * 注册续期任务，锁释放前需调用 {@link Renewal#cancel()}
+     *
+     * @param lockName 锁名
+     * @param renew    续期动作，返回 false 表示锁已不再持有
+     * @return 续期句柄
+     */
+    public Renewal register(String lockName, Supplier<CompletionStage<Boolean>> renew) {
+        Renewal renewal = new Renewal(lockName, renew);
+        renewals.add(renewal);
+        return renewal;
+    }
+    
+    public void shutdown() {
+        scheduler.shutdownNow();
+        renewals.clear();
+    }
+    
+    private void renewAll() {
+        for (Renewal renewal : renewals) {
+            try {
+                renewal.renew.get().whenComplete((renewed, e) -> {
+                    if (e != null) {
+                        log.warn("lock renew fail {}", renewal.lockName, e);
+                    } else if (!Boolean.TRUE.equals(renewed)) {
+                        log.warn("lock lost before renew {}", renewal.lockName);
+                        renewals.remove(renewal);
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("lock renew fail {}", renewal.lockName, e);
+            }
+        }
+    }
+    
+    /**
+     * 续期句柄
+     */
+    public class Renewal {
+        
+        private final String lockName;
+        
+        private final Supplier<CompletionStage<Boolean>> renew;
+        
+        private Renewal(String lockName, Supplier<CompletionStage<Boolean>> renew) {
+            this.lockName = lockName;
+            this.renew = renew;
+        }
+        
+        /**
+         * 停止续期
+         */
+        public void cancel() {
+            renewals.remove(this);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.core;
+
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+
+/**
+ * 加锁日志采样，高并发下每次加锁都打印日志开销过大，debug 级别按比例采样，trace 级别全部打印
+ *
+ * @author : wh
+ * @date : 2024/9/28 11:40
+ * @description:
+ */
+final class LockLogSampler {
+    
+    /**
+     * 采样比例 1/SAMPLE_RATE
+     */
+    static final int SAMPLE_RATE = 100;
+    
+    private LockLogSampler() {
+    }
+    
+    static boolean sample(Logger log) {
+        if (log.isTraceEnabled()) {
+            return true;
+        }
+        return log.isDebugEnabled() && ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0;
+    }
+}
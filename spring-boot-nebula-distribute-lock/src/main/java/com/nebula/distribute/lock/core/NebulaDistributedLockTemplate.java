@@ -17,9 +17,13 @@
  
 package com.nebula.distribute.lock.core;
 
+import com.nebula.distribute.lock.enums.LockMode;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * outTime 传入 {@link #AUTO_RENEW_OUT_TIME} 时锁不设置固定租期，持有期间自动续期
+ *
  * @author : wh
  * @date : 2024/3/15 13:35
  * @description:
@@ -38,6 +42,10 @@ public interface NebulaDistributedLockTemplate {
      * 默认时间单位
      */
     TimeUnit DEFAULT_TIME_UNIT = TimeUnit.SECONDS;
+    /**
+     * 自动续期
+     */
+    long AUTO_RENEW_OUT_TIME = -1;
     
     /**
      * 加锁
@@ -46,7 +54,9 @@ public interface NebulaDistributedLockTemplate {
      * @param <T>
      * @return
      */
-    <T> T lock(DistributedLock<T> distributedLock, boolean fairLock);
+    default <T> T lock(DistributedLock<T> distributedLock, boolean fairLock) {
+        return lock(distributedLock, DEFAULT_OUT_TIME, DEFAULT_TIME_UNIT, fairLock);
+    }
     
     /**
      *
@@ -57,7 +67,20 @@ public interface NebulaDistributedLockTemplate {
      * @param <T>
      * @return
      */
-    <T> T lock(DistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, boolean fairLock);
+    default <T> T lock(DistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, boolean fairLock) {
+        return lock(distributedLock, outTime, timeUnit, LockMode.of(fairLock));
+    }
+    
+    /**
+     *
+     * @param distributedLock
+     * @param outTime 锁超时时间。超时后自动释放锁
+     * @param timeUnit 时间单位
+     * @param lockMode 锁模式
+     * @param <T>
+     * @return
+     */
+    <T> T lock(DistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode);
     
     /**
      * 尝试加锁
@@ -66,7 +89,9 @@ public interface NebulaDistributedLockTemplate {
      * @param <T>
      * @return
      */
-    <T> T tryLock(DistributedLock<T> distributedLock, boolean fairLock);
+    default <T> T tryLock(DistributedLock<T> distributedLock, boolean fairLock) {
+        return tryLock(distributedLock, DEFAULT_TRY_OUT_TIME, DEFAULT_OUT_TIME, DEFAULT_TIME_UNIT, fairLock);
+    }
     
     /**
      *
@@ -78,6 +103,115 @@ public interface NebulaDistributedLockTemplate {
      * @param <T>
      * @return
      */
-    <T> T tryLock(DistributedLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, boolean fairLock);
+    default <T> T tryLock(DistributedLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, boolean fairLock) {
+        return tryLock(distributedLock, tryOutTime, outTime, timeUnit, LockMode.of(fairLock));
+    }
+    
+    /**
+     *
+     * @param distributedLock
+     * @param tryOutTime 尝试获取锁时间
+     * @param outTime 锁超时时间
+     * @param timeUnit 时间单位
+     * @param lockMode 锁模式
+     * @param <T>
+     * @return
+     */
+    <T> T tryLock(DistributedLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, LockMode lockMode);
+    
+    /**
+     * 多key加锁，锁名排序后一次性加锁，全部成功才执行
+     * @param distributedLock
+     * @param fairLock 是否使用公平锁
+     * @param <T>
+     * @return
+     */
+    default <T> T multiLock(DistributedMultiLock<T> distributedLock, boolean fairLock) {
+        return multiLock(distributedLock, DEFAULT_OUT_TIME, DEFAULT_TIME_UNIT, fairLock);
+    }
+    
+    /**
+     *
+     * @param distributedLock
+     * @param outTime 锁超时时间。超时后自动释放锁
+     * @param timeUnit 时间单位
+     * @param fairLock 是否使用公平锁
+     * @param <T>
+     * @return
+     */
+    default <T> T multiLock(DistributedMultiLock<T> distributedLock, long outTime, TimeUnit timeUnit, boolean fairLock) {
+        return multiLock(distributedLock, outTime, timeUnit, LockMode.of(fairLock));
+    }
+    
+    /**
+     *
+     * @param distributedLock
+     * @param outTime 锁超时时间。超时后自动释放锁
+     * @param timeUnit 时间单位
+     * @param lockMode 锁模式
+     * @param <T>
+     * @return
+     */
+    <T> T multiLock(DistributedMultiLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode);
+    
+    /**
+     * 多key尝试加锁
+     * @param distributedLock
+     * @param fairLock 是否使用公平锁
+     * @param <T>
+     * @return
+     */
+    default <T> T tryMultiLock(DistributedMultiLock<T> distributedLock, boolean fairLock) {
+        return tryMultiLock(distributedLock, DEFAULT_TRY_OUT_TIME, DEFAULT_OUT_TIME, DEFAULT_TIME_UNIT, fairLock);
+    }
+    
+    /**
+     *
+     * @param distributedLock
+     * @param tryOutTime 尝试获取锁时间
+     * @param outTime 锁超时时间
+     * @param timeUnit 时间单位
+     * @param fairLock 是否使用公平锁
+     * @param <T>
+     * @return
+     */
+    default <T> T tryMultiLock(DistributedMultiLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, boolean fairLock) {
+        return tryMultiLock(distributedLock, tryOutTime, outTime, timeUnit, LockMode.of(fairLock));
+    }
+    
+    /**
+     *
+     * @param distributedLock
+     * @param tryOutTime 尝试获取锁时间
+     * @param outTime 锁超时时间
+     * @param timeUnit 时间单位
+     * @param lockMode 锁模式
+     * @param <T>
+     * @return
+     */
+    <T> T tryMultiLock(DistributedMultiLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, LockMode lockMode);
+    
+    /**
+     * 异步加锁，等待锁期间不占用线程
+     * @param distributedLock
+     * @param outTime 锁超时时间。超时后自动释放锁
+     * @param timeUnit 时间单位
+     * @param lockMode 锁模式
+     * @param <T>
+     * @return
+     */
+    <T> CompletableFuture<T> lockAsync(AsyncDistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode);
+    
+    /**
+     * 异步尝试加锁，获取锁失败时 future 以 DistributedLockException 结束
+     * @param distributedLock
+     * @param tryOutTime 尝试获取锁时间
+     * @param outTime 锁超时时间
+     * @param timeUnit 时间单位
+     * @param lockMode 锁模式
+     * @param <T>
+     * @return
+     */
+    <T> CompletableFuture<T> tryLockAsync(AsyncDistributedLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, LockMode lockMode);
     
 }
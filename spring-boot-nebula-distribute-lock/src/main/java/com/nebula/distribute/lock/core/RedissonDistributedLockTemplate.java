@@ -17,66 +17,167 @@
  
 package com.nebula.distribute.lock.core;
 
+import com.nebula.distribute.lock.enums.LockMode;
 import com.nebula.distribute.lock.exception.DistributedLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.RedissonObject;
 import org.redisson.api.RLock;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.connection.CRC16;
+import org.redisson.pubsub.LockPubSub;
 
 /**
+ * outTime 为 {@link #AUTO_RENEW_OUT_TIME} 时，配置了 {@link LockLeaseRenewer} 则由其统一续期，否则使用 redisson 自带看门狗
+ * <p>
+ * 异步加锁成功后在 executor 中执行业务方法，redisson 在 netty 线程上完成 future，业务方法阻塞会拖慢所有 redis 请求
+ * <p>
+ * EXCLUSIVE 多key加锁通过一个 lua 脚本一次加锁全部 key，未竞争时只需一次 redis 往返，key 的数据结构与 RedissonLock 一致；
+ * 集群模式下 key 需落在同一 slot（可用 {hashtag}），否则与 READ/WRITE/FAIR 模式、无续期器的自动续期一样使用 RedissonMultiLock 逐个加锁
+ *
  * @author : wh
  * @date : 2024/3/15 13:36
  * @description:
  */
 @Slf4j
-@RequiredArgsConstructor
 public class RedissonDistributedLockTemplate implements NebulaDistributedLockTemplate {
     
+    /**
+     * 与 redisson 看门狗相同的续期脚本，锁仍被当前持有者持有时才续期
+     */
+    private static final String RENEW_SCRIPT = "if (redis.call('hexists', KEYS[1], ARGV[2]) == 1) then "
+            + "redis.call('pexpire', KEYS[1], ARGV[1]); "
+            + "return 1; "
+            + "end; "
+            + "return 0;";
+    
+    /**
+     * 所有 key 都未被其他持有者持有时一次加锁全部 key 并返回 nil，否则不加锁并返回被占用 key 的剩余租期
+     */
+    private static final String MULTI_LOCK_SCRIPT = "for i = 1, #KEYS do "
+            + "if (redis.call('exists', KEYS[i]) == 1 and redis.call('hexists', KEYS[i], ARGV[2]) == 0) then "
+            + "return redis.call('pttl', KEYS[i]); "
+            + "end; "
+            + "end; "
+            + "for i = 1, #KEYS do "
+            + "redis.call('hincrby', KEYS[i], ARGV[2], 1); "
+            + "redis.call('pexpire', KEYS[i], ARGV[1]); "
+            + "end; "
+            + "return nil;";
+    
+    /**
+     * 一次释放全部 key，与 RedissonLock 相同地在锁删除时发布解锁消息，ARGV[3 + i] 为 KEYS[i] 的解锁频道；返回已不再持有的 key 数
+     */
+    private static final String MULTI_UNLOCK_SCRIPT = "local lost = 0; "
+            + "for i = 1, #KEYS do "
+            + "if (redis.call('hexists', KEYS[i], ARGV[3]) == 0) then "
+            + "lost = lost + 1; "
+            + "else "
+            + "local counter = redis.call('hincrby', KEYS[i], ARGV[3], -1); "
+            + "if (counter > 0) then "
+            + "redis.call('pexpire', KEYS[i], ARGV[2]); "
+            + "else "
+            + "redis.call('del', KEYS[i]); "
+            + "redis.call('publish', ARGV[3 + i], ARGV[1]); "
+            + "end; "
+            + "end; "
+            + "end; "
+            + "return lost;";
+    
+    /**
+     * 多key脚本加锁被占用时的最长重试间隔，毫秒
+     */
+    private static final long MULTI_LOCK_MAX_RETRY_INTERVAL = 100;
+    
+    private static final int CLUSTER_SLOTS = 16384;
+    
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+    
     private final RedissonClient redisson;
     
-    @Override
-    public <T> T lock(DistributedLock<T> distributedLock, boolean fairLock) {
-        return lock(distributedLock, DEFAULT_OUT_TIME, DEFAULT_TIME_UNIT, fairLock);
+    private final LockLeaseRenewer renewer;
+    
+    private final Executor executor;
+    
+    public RedissonDistributedLockTemplate(RedissonClient redisson) {
+        this(redisson, null);
+    }
+    
+    public RedissonDistributedLockTemplate(RedissonClient redisson, LockLeaseRenewer renewer) {
+        this(redisson, renewer, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * @param executor 异步加锁成功后执行业务方法的线程池
+     */
+    public RedissonDistributedLockTemplate(RedissonClient redisson, LockLeaseRenewer renewer, Executor executor) {
+        this.redisson = redisson;
+        this.renewer = renewer;
+        this.executor = executor;
     }
     
     @Override
-    public <T> T lock(DistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, boolean fairLock) {
-        RLock lock = getLock(distributedLock.lockName(), fairLock);
-        lock.lock(outTime, timeUnit);
+    public <T> T lock(DistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        String lockName = distributedLock.lockName();
+        RLock lock = getLock(lockName, lockMode);
+        lock.lock(leaseTime(outTime, timeUnit, lockMode), TimeUnit.MILLISECONDS);
+        List<LockLeaseRenewer.Renewal> renewals = startRenewal(Collections.singleton(lockName), outTime, lockMode, Thread.currentThread().getId());
         try {
             return distributedLock.process();
         } finally {
+            cancelRenewal(renewals);
             if (lock.isLocked()) {
                 lock.unlock();
             }
         }
     }
     
-    @Override
-    public <T> T tryLock(DistributedLock<T> distributedLock, boolean fairLock) {
-        return tryLock(distributedLock, DEFAULT_TRY_OUT_TIME, DEFAULT_OUT_TIME, DEFAULT_TIME_UNIT, fairLock);
-    }
-    
     @Override
     public <T> T tryLock(DistributedLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit,
-                         boolean fairLock) {
+                         LockMode lockMode) {
         String lockName = distributedLock.lockName();
-        RLock lock = getLock(lockName, fairLock);
+        RLock lock = getLock(lockName, lockMode);
+        // 同一次加锁的日志一起采样，保证采样到的日志完整
+        boolean sampled = LockLogSampler.sample(log);
         try {
-            log.info("try acquire lock {}", lockName);
-            if (lock.tryLock(tryOutTime, outTime, timeUnit)) {
-                log.info("lock acquired {}", lockName);
+            if (sampled) {
+                log.debug("try acquire lock {}", lockName);
+            }
+            if (lock.tryLock(timeUnit.toMillis(tryOutTime), leaseTime(outTime, timeUnit, lockMode), TimeUnit.MILLISECONDS)) {
+                if (sampled) {
+                    log.debug("lock acquired {}", lockName);
+                }
+                List<LockLeaseRenewer.Renewal> renewals = startRenewal(Collections.singleton(lockName), outTime, lockMode, Thread.currentThread().getId());
                 try {
                     return distributedLock.process();
                 } finally {
+                    cancelRenewal(renewals);
                     // isHeldByCurrentThread 防止锁过期再释放锁导致报错
                     if (lock.isLocked() && lock.isHeldByCurrentThread()) {
                         lock.unlock();
-                        log.info("lock released {}", lockName);
+                        if (sampled) {
+                            log.debug("lock released {}", lockName);
+                        }
                     }
                 }
             }
+            if (sampled) {
+                log.debug("can not acquire lock {}", lockName);
+            }
         } catch (InterruptedException ignored) {
             log.warn("锁中断...");
             log.info("can not acquire lock {}", lockName);
@@ -84,8 +185,325 @@ public class RedissonDistributedLockTemplate implements NebulaDistributedLockTem
         throw new DistributedLockException("lock fail");
     }
     
-    private RLock getLock(String lockName, boolean fairLock) {
-        return fairLock ? redisson.getFairLock(lockName) : redisson.getLock(lockName);
+    @Override
+    public <T> T multiLock(DistributedMultiLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        List<String> lockNames = sortLockNames(distributedLock.lockNames());
+        long leaseTime = leaseTime(outTime, timeUnit, lockMode);
+        if (useMultiLockScript(lockNames, leaseTime, lockMode)) {
+            try {
+                acquireMultiLock(lockNames, leaseTime, NO_DEADLINE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("锁中断...");
+                throw new DistributedLockException("lock fail", e);
+            }
+            return processAndReleaseMultiLock(distributedLock, lockNames, leaseTime, outTime, lockMode);
+        }
+        RLock lock = getMultiLock(lockNames, lockMode);
+        lock.lock(leaseTime, TimeUnit.MILLISECONDS);
+        List<LockLeaseRenewer.Renewal> renewals = startRenewal(lockNames, outTime, lockMode, Thread.currentThread().getId());
+        try {
+            return distributedLock.process();
+        } finally {
+            cancelRenewal(renewals);
+            unlockMultiLock(lock);
+        }
+    }
+    
+    @Override
+    public <T> T tryMultiLock(DistributedMultiLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit,
+                              LockMode lockMode) {
+        List<String> lockNames = sortLockNames(distributedLock.lockNames());
+        long leaseTime = leaseTime(outTime, timeUnit, lockMode);
+        try {
+            if (useMultiLockScript(lockNames, leaseTime, lockMode)) {
+                if (acquireMultiLock(lockNames, leaseTime, System.nanoTime() + timeUnit.toNanos(tryOutTime))) {
+                    return processAndReleaseMultiLock(distributedLock, lockNames, leaseTime, outTime, lockMode);
+                }
+            } else {
+                RLock lock = getMultiLock(lockNames, lockMode);
+                if (lock.tryLock(timeUnit.toMillis(tryOutTime), leaseTime, TimeUnit.MILLISECONDS)) {
+                    List<LockLeaseRenewer.Renewal> renewals = startRenewal(lockNames, outTime, lockMode, Thread.currentThread().getId());
+                    try {
+                        return distributedLock.process();
+                    } finally {
+                        cancelRenewal(renewals);
+                        unlockMultiLock(lock);
+                    }
+                }
+            }
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+            log.warn("锁中断...");
+        }
+        if (LockLogSampler.sample(log)) {
+            log.debug("can not acquire lock {}", lockNames);
+        }
+        throw new DistributedLockException("lock fail");
+    }
+    
+    @Override
+    public <T> CompletableFuture<T> lockAsync(AsyncDistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        RLock lock = getLock(distributedLock.lockName(), lockMode);
+        long lockId = nextLockId();
+        return lock.lockAsync(leaseTime(outTime, timeUnit, lockMode), TimeUnit.MILLISECONDS, lockId).toCompletableFuture()
+                .thenComposeAsync(ignored -> processAndUnlock(distributedLock, lock, lockId, outTime, lockMode),
+                        unlockOnReject(distributedLock.lockName(), lock, lockId));
+    }
+    
+    @Override
+    public <T> CompletableFuture<T> tryLockAsync(AsyncDistributedLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit,
+                                                 LockMode lockMode) {
+        String lockName = distributedLock.lockName();
+        RLock lock = getLock(lockName, lockMode);
+        long lockId = nextLockId();
+        return lock.tryLockAsync(timeUnit.toMillis(tryOutTime), leaseTime(outTime, timeUnit, lockMode), TimeUnit.MILLISECONDS, lockId)
+                .toCompletableFuture()
+                .thenCompose(acquired -> {
+                    if (!acquired) {
+                        if (LockLogSampler.sample(log)) {
+                            log.debug("can not acquire lock {}", lockName);
+                        }
+                        return CompletableFuture.failedFuture(new DistributedLockException("lock fail"));
+                    }
+                    return CompletableFuture.completedFuture(null)
+                            .thenComposeAsync(ignored -> processAndUnlock(distributedLock, lock, lockId, outTime, lockMode),
+                                    unlockOnReject(lockName, lock, lockId));
+                });
+    }
+    
+    /**
+     * 异步锁的获取和释放可能在不同线程，使用独立的锁id代替线程id
+     */
+    private long nextLockId() {
+        return ThreadLocalRandom.current().nextLong(Long.MAX_VALUE);
+    }
+    
+    /**
+     * 加锁成功后切换到 executor 执行业务方法；executor 拒绝时业务方法不会执行，需释放已加的锁，否则自动续期时看门狗会一直续期这把锁
+     */
+    private Executor unlockOnReject(String lockName, RLock lock, long lockId) {
+        return command -> {
+            try {
+                executor.execute(command);
+            } catch (RejectedExecutionException e) {
+                unlockAsync(lockName, lock, lockId);
+                throw new DistributedLockException("lock fail", e);
+            }
+        };
+    }
+    
+    private <T> CompletableFuture<T> processAndUnlock(AsyncDistributedLock<T> distributedLock, RLock lock, long lockId, long outTime,
+                                                      LockMode lockMode) {
+        List<LockLeaseRenewer.Renewal> renewals = startRenewal(Collections.singleton(distributedLock.lockName()), outTime, lockMode, lockId);
+        CompletableFuture<T> future;
+        try {
+            future = distributedLock.process();
+        } catch (Throwable e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, e) -> {
+            cancelRenewal(renewals);
+            unlockAsync(distributedLock.lockName(), lock, lockId);
+        });
+    }
+    
+    private void unlockAsync(String lockName, RLock lock, long lockId) {
+        lock.unlockAsync(lockId).whenComplete((ignored, unlockException) -> {
+            if (unlockException != null) {
+                log.warn("async lock release fail {}", lockName, unlockException);
+            }
+        });
+    }
+    
+    /**
+     * 转换为 redisson 租期，毫秒；-1 表示使用 redisson 自带看门狗
+     */
+    private long leaseTime(long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        if (outTime != AUTO_RENEW_OUT_TIME) {
+            return timeUnit.toMillis(outTime);
+        }
+        return useRenewer(outTime, lockMode) ? renewer.getLeaseTime() : -1;
+    }
+    
+    /**
+     * 读锁续期涉及多个key，交给 redisson 自带看门狗
+     */
+    private boolean useRenewer(long outTime, LockMode lockMode) {
+        return outTime == AUTO_RENEW_OUT_TIME && renewer != null && lockMode != LockMode.READ;
+    }
+    
+    /**
+     * 注册续期任务，lockId 与 redisson 锁 hash 中的持有者字段一致
+     */
+    private List<LockLeaseRenewer.Renewal> startRenewal(Collection<String> lockNames, long outTime, LockMode lockMode, long lockId) {
+        if (!useRenewer(outTime, lockMode)) {
+            return Collections.emptyList();
+        }
+        String holder = holder(lockId) + (lockMode == LockMode.WRITE ? ":write" : "");
+        String leaseTime = String.valueOf(renewer.getLeaseTime());
+        RScript script = redisson.getScript(StringCodec.INSTANCE);
+        List<LockLeaseRenewer.Renewal> renewals = new ArrayList<>(lockNames.size());
+        for (String lockName : lockNames) {
+            List<Object> keys = Collections.singletonList(lockName);
+            renewals.add(renewer.register(lockName,
+                    () -> script.evalAsync(lockName, RScript.Mode.READ_WRITE, RENEW_SCRIPT, RScript.ReturnType.BOOLEAN, keys, leaseTime, holder)));
+        }
+        return renewals;
+    }
+    
+    /**
+     * 与 redisson 锁 hash 中的持有者字段一致
+     */
+    private String holder(long lockId) {
+        return redisson.getId() + ":" + lockId;
+    }
+    
+    private void cancelRenewal(List<LockLeaseRenewer.Renewal> renewals) {
+        for (LockLeaseRenewer.Renewal renewal : renewals) {
+            renewal.cancel();
+        }
+    }
+    
+    /**
+     * 读写锁与互斥锁在redis中的数据结构不同，同一个锁名需固定使用 READ/WRITE 或 EXCLUSIVE/FAIR
+     */
+    private RLock getLock(String lockName, LockMode lockMode) {
+        switch (lockMode) {
+            case FAIR:
+                return redisson.getFairLock(lockName);
+            case READ:
+                return redisson.getReadWriteLock(lockName).readLock();
+            case WRITE:
+                return redisson.getReadWriteLock(lockName).writeLock();
+            default:
+                return redisson.getLock(lockName);
+        }
+    }
+    
+    /**
+     * 锁名去重排序保证所有节点加锁顺序一致，避免死锁
+     */
+    private List<String> sortLockNames(Collection<String> lockNames) {
+        if (lockNames == null || lockNames.isEmpty()) {
+            throw new DistributedLockException("lockNames is empty");
+        }
+        return new ArrayList<>(new TreeSet<>(lockNames));
+    }
+    
+    /**
+     * 只有 EXCLUSIVE 与 RedissonLock 的数据结构可以在一个脚本中处理；租期需为正数，redisson 看门狗无法续期脚本加的锁
+     */
+    private boolean useMultiLockScript(List<String> lockNames, long leaseTime, LockMode lockMode) {
+        if (lockMode != LockMode.EXCLUSIVE || leaseTime <= 0) {
+            return false;
+        }
+        if (!redisson.getConfig().isClusterConfig()) {
+            return true;
+        }
+        int slot = slot(lockNames.get(0));
+        for (String lockName : lockNames) {
+            if (slot(lockName) != slot) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 与 redis cluster 相同的 slot 计算，存在 {hashtag} 时只计算 hashtag
+     */
+    private static int slot(String key) {
+        int start = key.indexOf('{');
+        if (start != -1) {
+            int end = key.indexOf('}', start + 1);
+            if (end > start + 1) {
+                key = key.substring(start + 1, end);
+            }
+        }
+        return CRC16.crc16(key.getBytes(StandardCharsets.UTF_8)) % CLUSTER_SLOTS;
+    }
+    
+    /**
+     * 通过脚本一次加锁全部 key，被占用时按剩余租期重试，重试间隔不超过 {@link #MULTI_LOCK_MAX_RETRY_INTERVAL}
+     *
+     * @param deadline 截止时间 {@link System#nanoTime()}，{@link #NO_DEADLINE} 表示一直等待
+     * @return 是否加锁成功
+     */
+    private boolean acquireMultiLock(List<String> lockNames, long leaseTime, long deadline) throws InterruptedException {
+        List<Object> keys = new ArrayList<>(lockNames);
+        String holder = holder(Thread.currentThread().getId());
+        RScript script = redisson.getScript(StringCodec.INSTANCE);
+        while (true) {
+            Long ttl = script.eval(lockNames.get(0), RScript.Mode.READ_WRITE, MULTI_LOCK_SCRIPT, RScript.ReturnType.INTEGER, keys,
+                    String.valueOf(leaseTime), holder);
+            if (ttl == null) {
+                return true;
+            }
+            long waitTime = ttl < 0 ? MULTI_LOCK_MAX_RETRY_INTERVAL : Math.min(ttl, MULTI_LOCK_MAX_RETRY_INTERVAL);
+            if (deadline != NO_DEADLINE) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                waitTime = Math.min(waitTime, remaining);
+            }
+            TimeUnit.MILLISECONDS.sleep(Math.max(1L, waitTime));
+        }
+    }
+    
+    private <T> T processAndReleaseMultiLock(DistributedMultiLock<T> distributedLock, List<String> lockNames, long leaseTime, long outTime,
+                                             LockMode lockMode) {
+        long threadId = Thread.currentThread().getId();
+        List<LockLeaseRenewer.Renewal> renewals = startRenewal(lockNames, outTime, lockMode, threadId);
+        try {
+            return distributedLock.process();
+        } finally {
+            cancelRenewal(renewals);
+            releaseMultiLock(lockNames, leaseTime, threadId);
+        }
+    }
+    
+    /**
+     * 通过脚本一次释放全部 key，锁过期后再释放只记录日志
+     */
+    private void releaseMultiLock(List<String> lockNames, long leaseTime, long threadId) {
+        Object[] args = new Object[3 + lockNames.size()];
+        args[0] = String.valueOf(LockPubSub.UNLOCK_MESSAGE);
+        args[1] = String.valueOf(leaseTime);
+        args[2] = holder(threadId);
+        for (int i = 0; i < lockNames.size(); i++) {
+            args[3 + i] = RedissonObject.prefixName("redisson_lock__channel", lockNames.get(i));
+        }
+        Long lost = redisson.getScript(StringCodec.INSTANCE).eval(lockNames.get(0), RScript.Mode.READ_WRITE, MULTI_UNLOCK_SCRIPT,
+                RScript.ReturnType.INTEGER, new ArrayList<>(lockNames), args);
+        if (lost != null && lost > 0) {
+            log.warn("multi lock already released: {} of {}", lost, lockNames);
+        }
+    }
+    
+    /**
+     * 构建联锁
+     */
+    private RLock getMultiLock(List<String> lockNames, LockMode lockMode) {
+        RLock[] locks = lockNames.stream()
+                .map(lockName -> getLock(lockName, lockMode))
+                .toArray(RLock[]::new);
+        return redisson.getMultiLock(locks);
+    }
+    
+    /**
+     * 联锁不支持 isHeldByCurrentThread，锁过期后再释放会抛出 IllegalMonitorStateException
+     */
+    private void unlockMultiLock(RLock lock) {
+        try {
+            lock.unlock();
+        } catch (CompletionException e) {
+            if (!(e.getCause() instanceof IllegalMonitorStateException)) {
+                throw e;
+            }
+            log.warn("multi lock already released: {}", e.getCause().getMessage());
+        }
     }
     
 }
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.enums;
+
+/**
+ * @author : wh
+ * @date : 2024/9/24 11:02
+ * @description: 锁模式
+ */
+public enum LockMode {
+    
+    /**
+     * 互斥锁
+     */
+    EXCLUSIVE,
+    
+    /**
+     * 公平锁
+     */
+    FAIR,
+    
+    /**
+     * 读锁，读读不互斥
+     */
+    READ,
+    
+    /**
+     * 写锁，与读锁、写锁均互斥
+     */
+    WRITE;
+    
+    public static LockMode of(boolean fairLock) {
+        return fairLock ? FAIR : EXCLUSIVE;
+    }
+}
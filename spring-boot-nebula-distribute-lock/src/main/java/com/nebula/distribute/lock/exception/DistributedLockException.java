@@ -27,4 +27,8 @@ public class DistributedLockException extends RuntimeException {
     public DistributedLockException(String message) {
         super(message);
     }
+    
+    public DistributedLockException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.idempotent;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 幂等结果存储
+ *
+ * @author : wh
+ * @date : 2024/9/30 10:25
+ * @description:
+ */
+public interface IdempotentResultStore {
+    
+    /**
+     * 获取缓存结果
+     *
+     * @param key        幂等key
+     * @param resultType 方法返回类型
+     * @return 未命中返回 null
+     */
+    IdempotentResult get(String key, Type resultType);
+    
+    /**
+     * 缓存结果
+     *
+     * @param key      幂等key
+     * @param result   方法返回值，可以为 null
+     * @param ttl      缓存时间
+     * @param timeUnit 时间单位
+     */
+    void put(String key, Object result, long ttl, TimeUnit timeUnit);
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.idempotent;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JVM内存幂等结果存储，适用于单节点部署或测试环境，过期结果在读取和定期写入时清理
+ *
+ * @author : wh
+ * @date : 2024/9/30 10:50
+ * @description:
+ */
+public class LocalIdempotentResultStore implements IdempotentResultStore {
+    
+    /**
+     * 每写入多少次清理一次过期结果
+     */
+    private static final int PURGE_INTERVAL = 1024;
+    
+    private final Map<String, Entry> results = new ConcurrentHashMap<>();
+    
+    private final AtomicInteger puts = new AtomicInteger();
+    
+    @Override
+    public IdempotentResult get(String key, Type resultType) {
+        Entry entry = results.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            results.remove(key, entry);
+            return null;
+        }
+        return entry.result;
+    }
+    
+    @Override
+    public void put(String key, Object result, long ttl, TimeUnit timeUnit) {
+        long now = System.nanoTime();
+        results.put(key, new Entry(IdempotentResult.of(result), now + timeUnit.toNanos(ttl)));
+        if (puts.incrementAndGet() % PURGE_INTERVAL == 0) {
+            results.values().removeIf(entry -> entry.isExpired(now));
+        }
+    }
+    
+    private static class Entry {
+        
+        private final IdempotentResult result;
+        
+        private final long expireAt;
+        
+        Entry(IdempotentResult result, long expireAt) {
+            this.result = result;
+            this.expireAt = expireAt;
+        }
+        
+        boolean isExpired(long now) {
+            return now - expireAt >= 0;
+        }
+    }
+}
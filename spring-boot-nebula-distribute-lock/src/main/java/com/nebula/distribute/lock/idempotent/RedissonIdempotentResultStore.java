@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.idempotent;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.nebula.base.utils.JsonUtil;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+/**
+ * 结果以 json 存储在 redis 中，按方法返回类型反序列化
+ *
+ * @author : wh
+ * @date : 2024/9/30 10:40
+ * @description:
+ */
+@RequiredArgsConstructor
+public class RedissonIdempotentResultStore implements IdempotentResultStore {
+    
+    private final RedissonClient redisson;
+    
+    @Override
+    public IdempotentResult get(String key, Type resultType) {
+        String json = bucket(key).get();
+        if (json == null) {
+            return null;
+        }
+        try {
+            return IdempotentResult.of(JsonUtil.getInstance().readValue(json, JsonUtil.getInstance().constructType(resultType)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("idempotent result deserialize fail " + key, e);
+        }
+    }
+    
+    @Override
+    public void put(String key, Object result, long ttl, TimeUnit timeUnit) {
+        String json = JsonUtil.toJSONString(result);
+        // 序列化失败时不缓存，重复调用会重新执行
+        if (json != null) {
+            bucket(key).set(json, ttl, timeUnit);
+        }
+    }
+    
+    private RBucket<String> bucket(String key) {
+        return redisson.getBucket(key, StringCodec.INSTANCE);
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.metrics;
+
+import com.nebula.distribute.lock.core.AsyncDistributedLock;
+import com.nebula.distribute.lock.core.DistributedLock;
+import com.nebula.distribute.lock.core.DistributedMultiLock;
+import com.nebula.distribute.lock.core.NebulaDistributedLockTemplate;
+import com.nebula.distribute.lock.enums.LockMode;
+import com.nebula.distribute.lock.exception.DistributedLockException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 分布式锁监控，按锁名模式统计获取锁耗时、持有锁时长、失败次数以及当前持有锁数量
+ * <p>
+ * 指标：
+ * <ul>
+ *     <li>nebula.lock.acquire 获取锁耗时，tag pattern/mode</li>
+ *     <li>nebula.lock.hold 持有锁时长，tag pattern/mode</li>
+ *     <li>nebula.lock.failure 获取锁失败次数，tag pattern/mode/reason，reason 为 timeout 或 error</li>
+ *     <li>nebula.lock.held 当前持有锁数量</li>
+ * </ul>
+ * 锁名模式取自 lockPattern，注解加锁时为注解中的原始锁名，编程式加锁未重写时统一为 programmatic，避免按业务id产生大量tag
+ *
+ * @author : wh
+ * @date : 2024/9/28 10:30
+ * @description:
+ */
+public class MicrometerDistributedLockTemplate implements NebulaDistributedLockTemplate {
+    
+    public static final String METRIC_ACQUIRE = "nebula.lock.acquire";
+    
+    public static final String METRIC_HOLD = "nebula.lock.hold";
+    
+    public static final String METRIC_FAILURE = "nebula.lock.failure";
+    
+    public static final String METRIC_HELD = "nebula.lock.held";
+    
+    private static final String UNKNOWN_PATTERN = "unknown";
+    
+    private final NebulaDistributedLockTemplate delegate;
+    
+    private final MeterRegistry registry;
+    
+    private final boolean percentileHistogram;
+    
+    private final AtomicInteger held = new AtomicInteger();
+    
+    /**
+     * 按 pattern + mode 缓存指标，避免每次加锁都构建 meter id
+     */
+    private final Map<String, Map<LockMode, LockMeters>> metersCache = new ConcurrentHashMap<>();
+    
+    public MicrometerDistributedLockTemplate(NebulaDistributedLockTemplate delegate, MeterRegistry registry, boolean percentileHistogram) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.percentileHistogram = percentileHistogram;
+        Gauge.builder(METRIC_HELD, held, AtomicInteger::get)
+                .description("currently held nebula locks")
+                .register(registry);
+    }
+    
+    @Override
+    public <T> T lock(DistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        Sample<T> sample = new Sample<>(getMeters(distributedLock.lockPattern(), lockMode), distributedLock::process);
+        return sample.record(() -> delegate.lock(new DistributedLock<>() {
+            
+            @Override
+            public T process() {
+                return sample.process();
+            }
+            
+            @Override
+            public String lockName() {
+                return distributedLock.lockName();
+            }
+            
+            @Override
+            public String lockPattern() {
+                return distributedLock.lockPattern();
+            }
+        }, outTime, timeUnit, lockMode));
+    }
+    
+    @Override
+    public <T> T tryLock(DistributedLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        Sample<T> sample = new Sample<>(getMeters(distributedLock.lockPattern(), lockMode), distributedLock::process);
+        return sample.record(() -> delegate.tryLock(new DistributedLock<>() {
+            
+            @Override
+            public T process() {
+                return sample.process();
+            }
+            
+            @Override
+            public String lockName() {
+                return distributedLock.lockName();
+            }
+            
+            @Override
+            public String lockPattern() {
+                return distributedLock.lockPattern();
+            }
+        }, tryOutTime, outTime, timeUnit, lockMode));
+    }
+    
+    @Override
+    public <T> T multiLock(DistributedMultiLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        Sample<T> sample = new Sample<>(getMeters(distributedLock.lockPattern(), lockMode), distributedLock::process);
+        return sample.record(() -> delegate.multiLock(new DistributedMultiLock<>() {
+            
+            @Override
+            public T process() {
+                return sample.process();
+            }
+            
+            @Override
+            public Collection<String> lockNames() {
+                return distributedLock.lockNames();
+            }
+            
+            @Override
+            public String lockPattern() {
+                return distributedLock.lockPattern();
+            }
+        }, outTime, timeUnit, lockMode));
+    }
+    
+    @Override
+    public <T> T tryMultiLock(DistributedMultiLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        Sample<T> sample = new Sample<>(getMeters(distributedLock.lockPattern(), lockMode), distributedLock::process);
+        return sample.record(() -> delegate.tryMultiLock(new DistributedMultiLock<>() {
+            
+            @Override
+            public T process() {
+                return sample.process();
+            }
+            
+            @Override
+            public Collection<String> lockNames() {
+                return distributedLock.lockNames();
+            }
+            
+            @Override
+            public String lockPattern() {
+                return distributedLock.lockPattern();
+            }
+        }, tryOutTime, outTime, timeUnit, lockMode));
+    }
+    
+    @Override
+    public <T> CompletableFuture<T> lockAsync(AsyncDistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+        AsyncSample<T> sample = new AsyncSample<>(getMeters(distributedLock.lockPattern(), lockMode), distributedLock);
+        return sample.record(() -> delegate.lockAsync(sample, outTime, timeUnit, lockMode));
+    }
+    
+    @Override
+    public <T> CompletableFuture<T> tryLockAsync(AsyncDistributedLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit,
+                                                 LockMode lockMode) {
+        AsyncSample<T> sample = new AsyncSample<>(getMeters(distributedLock.lockPattern(), lockMode), distributedLock);
+        return sample.record(() -> delegate.tryLockAsync(sample, tryOutTime, outTime, timeUnit, lockMode));
+    }
+    
+    private LockMeters getMeters(String pattern, LockMode lockMode) {
+        String key = pattern == null ? UNKNOWN_PATTERN : pattern;
+        return metersCache.computeIfAbsent(key, ignored -> new ConcurrentHashMap<>())
+                .computeIfAbsent(lockMode, mode -> new LockMeters(key, mode));
+    }
+    
+    private static boolean isTimeout(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof DistributedLockException;
+    }
+    
+    /**
+     * 同一个锁名模式 + 锁模式下的全部指标
+     */
+    private class LockMeters {
+        
+        private final Timer acquire;
+        
+        private final Timer hold;
+        
+        private final Counter timeout;
+        
+        private final Counter error;
+        
+        LockMeters(String pattern, LockMode lockMode) {
+            String mode = lockMode.name().toLowerCase();
+            this.acquire = Timer.builder(METRIC_ACQUIRE)
+                    .description("nebula lock acquire latency")
+                    .tag("pattern", pattern)
+                    .tag("mode", mode)
+                    .publishPercentileHistogram(percentileHistogram)
+                    .register(registry);
+            this.hold = Timer.builder(METRIC_HOLD)
+                    .description("nebula lock hold time")
+                    .tag("pattern", pattern)
+                    .tag("mode", mode)
+                    .register(registry);
+            this.timeout = failureCounter(pattern, mode, "timeout");
+            this.error = failureCounter(pattern, mode, "error");
+        }
+        
+        private Counter failureCounter(String pattern, String mode, String reason) {
+            return Counter.builder(METRIC_FAILURE)
+                    .description("nebula lock acquire failures")
+                    .tag("pattern", pattern)
+                    .tag("mode", mode)
+                    .tag("reason", reason)
+                    .register(registry);
+        }
+        
+        /**
+         * 未进入业务代码前抛出的异常算作获取锁失败，业务代码自身的异常不计入
+         */
+        void failure(Throwable e) {
+            (isTimeout(e) ? timeout : error).increment();
+        }
+    }
+    
+    /**
+     * 同步加锁的一次采样，进入业务代码时记录获取锁耗时，退出时记录持有时长
+     */
+    private class Sample<T> {
+        
+        private final LockMeters meters;
+        
+        private final Supplier<T> processor;
+        
+        private final long start = System.nanoTime();
+        
+        private boolean acquired;
+        
+        Sample(LockMeters meters, Supplier<T> processor) {
+            this.meters = meters;
+            this.processor = processor;
+        }
+        
+        T record(Supplier<T> lock) {
+            try {
+                return lock.get();
+            } catch (RuntimeException e) {
+                if (!acquired) {
+                    meters.failure(e);
+                }
+                throw e;
+            }
+        }
+        
+        T process() {
+            long acquiredAt = System.nanoTime();
+            acquired = true;
+            meters.acquire.record(acquiredAt - start, TimeUnit.NANOSECONDS);
+            held.incrementAndGet();
+            try {
+                return processor.get();
+            } finally {
+                held.decrementAndGet();
+                meters.hold.record(System.nanoTime() - acquiredAt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+    
+    /**
+     * 异步加锁的一次采样，持有时长记录到业务 future 完成
+     */
+    private class AsyncSample<T> implements AsyncDistributedLock<T> {
+        
+        private final LockMeters meters;
+        
+        private final AsyncDistributedLock<T> distributedLock;
+        
+        private final long start = System.nanoTime();
+        
+        private volatile boolean acquired;
+        
+        AsyncSample(LockMeters meters, AsyncDistributedLock<T> distributedLock) {
+            this.meters = meters;
+            this.distributedLock = distributedLock;
+        }
+        
+        CompletableFuture<T> record(Supplier<CompletableFuture<T>> lock) {
+            CompletableFuture<T> future;
+            try {
+                future = lock.get();
+            } catch (RuntimeException e) {
+                meters.failure(e);
+                throw e;
+            }
+            return future.whenComplete((result, e) -> {
+                if (e != null && !acquired) {
+                    meters.failure(e);
+                }
+            });
+        }
+        
+        @Override
+        public CompletableFuture<T> process() {
+            long acquiredAt = System.nanoTime();
+            acquired = true;
+            meters.acquire.record(acquiredAt - start, TimeUnit.NANOSECONDS);
+            held.incrementAndGet();
+            CompletableFuture<T> future;
+            try {
+                future = distributedLock.process();
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            return future.whenComplete((result, e) -> {
+                held.decrementAndGet();
+                meters.hold.record(System.nanoTime() - acquiredAt, TimeUnit.NANOSECONDS);
+            });
+        }
+        
+        @Override
+        public String lockName() {
+            return distributedLock.lockName();
+        }
+        
+        @Override
+        public String lockPattern() {
+            return distributedLock.lockPattern();
+        }
+    }
+}
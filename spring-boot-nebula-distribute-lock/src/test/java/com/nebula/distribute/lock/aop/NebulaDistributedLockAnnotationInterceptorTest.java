@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.aop;
+
+import com.nebula.aop.base.NebulaBaseAnnotationAdvisor;
+import com.nebula.distribute.lock.annotation.NebulaDistributedLock;
+import com.nebula.distribute.lock.core.DistributedLock;
+import com.nebula.distribute.lock.core.LocalDistributedLockTemplate;
+import com.nebula.distribute.lock.enums.LockMode;
+import com.nebula.distribute.lock.exception.DistributedLockException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author : wh
+ * @date : 2024/9/30 15:10
+ * @description:
+ */
+public class NebulaDistributedLockAnnotationInterceptorTest {
+    
+    @Test
+    public void testAsyncLockHeldUntilFutureCompletes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            LocalDistributedLockTemplate template = new LocalDistributedLockTemplate(16, executor);
+            OrderService target = new OrderService();
+            OrderService orderService = proxy(target, template);
+            CompletableFuture<String> result = orderService.pay(1L);
+            assertEquals("order_1", target.started.get(5, TimeUnit.SECONDS));
+            // 方法已返回但 future 未完成，锁仍被持有
+            assertThrows(DistributedLockException.class,
+                    () -> template.tryLock(lock("order_1"), 50, 5000, TimeUnit.MILLISECONDS, LockMode.EXCLUSIVE));
+            target.paid.complete("paid");
+            assertEquals("paid", result.get(5, TimeUnit.SECONDS));
+            assertEquals("ok", template.tryLock(lock("order_1"), 1, 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static OrderService proxy(OrderService target, LocalDistributedLockTemplate template) {
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(new NebulaBaseAnnotationAdvisor(new NebulaDistributedLockAnnotationInterceptor(template), NebulaDistributedLock.class));
+        return (OrderService) proxyFactory.getProxy();
+    }
+    
+    private static DistributedLock<String> lock(String lockName) {
+        return new DistributedLock<>() {
+            
+            @Override
+            public String process() {
+                return "ok";
+            }
+            
+            @Override
+            public String lockName() {
+                return lockName;
+            }
+        };
+    }
+    
+    public static class OrderService {
+        
+        private final CompletableFuture<String> started = new CompletableFuture<>();
+        
+        private final CompletableFuture<String> paid = new CompletableFuture<>();
+        
+        @NebulaDistributedLock(lockNamePre = "order", lockNamePost = "#id")
+        public CompletableFuture<String> pay(Long id) {
+            started.complete("order_" + id);
+            return paid;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.aop;
+
+import com.nebula.distribute.lock.annotation.NebulaDistributedLock;
+import com.nebula.distribute.lock.exception.DistributedLockException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author : wh
+ * @date : 2024/9/20 15:30
+ * @description:
+ */
+public class NebulaDistributedLockPlanTest {
+    
+    @Test
+    public void testLockName() throws NoSuchMethodException {
+        Object[] args = {"order", 10086L};
+        assertEquals("fixed", lockName("lockName", args));
+        assertEquals("order_pay", lockName("constant", args));
+        assertEquals("order_10086", lockName("constantPre", args));
+        assertEquals("order_pay", lockName("constantPost", args));
+        assertEquals("order-10086", lockName("expression", args));
+        assertEquals("_10086", lockName("emptyPre", args));
+    }
+    
+    @Test
+    public void testLockNames() throws NoSuchMethodException {
+        Method method = TestService.class.getDeclaredMethod("multiLock", List.class);
+        NebulaDistributedLockPlan plan = new NebulaDistributedLockPlan(method.getAnnotation(NebulaDistributedLock.class), method);
+        Object[] args = {Arrays.asList(3L, 1L, 2L, 1L)};
+        assertEquals(Arrays.asList("sku_1", "sku_2", "sku_3"), List.copyOf(plan.lockNames(method, args)));
+    }
+    
+    @Test
+    public void testAsyncMultiLockRejected() throws NoSuchMethodException {
+        Method method = TestService.class.getDeclaredMethod("asyncMultiLock", List.class);
+        NebulaDistributedLock annotation = method.getAnnotation(NebulaDistributedLock.class);
+        assertThrows(DistributedLockException.class, () -> new NebulaDistributedLockPlan(annotation, method));
+    }
+    
+    @Test
+    public void testMultiLockWithLockNameRejected() throws NoSuchMethodException {
+        Method method = TestService.class.getDeclaredMethod("multiLockWithLockName", List.class);
+        NebulaDistributedLock annotation = method.getAnnotation(NebulaDistributedLock.class);
+        assertThrows(DistributedLockException.class, () -> new NebulaDistributedLockPlan(annotation, method));
+    }
+    
+    private String lockName(String methodName, Object[] args) throws NoSuchMethodException {
+        Method method = TestService.class.getDeclaredMethod(methodName, String.class, Long.class);
+        NebulaDistributedLockPlan plan = new NebulaDistributedLockPlan(method.getAnnotation(NebulaDistributedLock.class), method);
+        return plan.lockName(method, args);
+    }
+    
+    private static class TestService {
+        
+        @NebulaDistributedLock(lockName = "fixed", lockNamePre = "order")
+        public void lockName(String type, Long id) {
+        }
+        
+        @NebulaDistributedLock(lockNamePre = "order", lockNamePost = "pay")
+        public void constant(String type, Long id) {
+        }
+        
+        @NebulaDistributedLock(lockNamePre = "order", lockNamePost = "#id")
+        public void constantPre(String type, Long id) {
+        }
+        
+        @NebulaDistributedLock(lockNamePre = "#type", lockNamePost = "pay")
+        public void constantPost(String type, Long id) {
+        }
+        
+        @NebulaDistributedLock(lockNamePre = "#type", lockNamePost = "#id", separator = "-")
+        public void expression(String type, Long id) {
+        }
+        
+        @NebulaDistributedLock(lockNamePost = "#id")
+        public void emptyPre(String type, Long id) {
+        }
+        
+        @NebulaDistributedLock(lockNamePre = "sku", lockNamePost = "#skuIds", multiLock = true)
+        public void multiLock(List<Long> skuIds) {
+        }
+        
+        @NebulaDistributedLock(lockName = "sku", lockNamePre = "sku", lockNamePost = "#skuIds", multiLock = true)
+        public void multiLockWithLockName(List<Long> skuIds) {
+        }
+        
+        @NebulaDistributedLock(lockNamePre = "sku", lockNamePost = "#skuIds", multiLock = true)
+        public CompletableFuture<Void> asyncMultiLock(List<Long> skuIds) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
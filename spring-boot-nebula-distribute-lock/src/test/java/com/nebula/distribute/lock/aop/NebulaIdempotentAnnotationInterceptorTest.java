@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.aop;
+
+import com.nebula.aop.base.NebulaBaseAnnotationAdvisor;
+import com.nebula.distribute.lock.annotation.NebulaIdempotent;
+import com.nebula.distribute.lock.core.LocalDistributedLockTemplate;
+import com.nebula.distribute.lock.idempotent.LocalIdempotentResultStore;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author : wh
+ * @date : 2024/9/30 14:20
+ * @description:
+ */
+public class NebulaIdempotentAnnotationInterceptorTest {
+    
+    /**
+     * 每个用例独立创建目标对象、代理与结果存储，surefire 2.18.1 的 POJO provider 在同一实例上执行全部用例且不调用 @BeforeEach
+     */
+    @Test
+    public void testRepeatCallReturnCachedResult() {
+        OrderService target = new OrderService();
+        OrderService orderService = proxy(target);
+        assertEquals("order-1-1", orderService.create(1L));
+        assertEquals("order-1-1", orderService.create(1L));
+        assertEquals("order-2-2", orderService.create(2L));
+        assertEquals(2, target.invocations.get());
+    }
+    
+    @Test
+    public void testConcurrentRepeatCallExecuteOnce() throws Exception {
+        OrderService target = new OrderService();
+        OrderService orderService = proxy(target);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> orderService.slowCreate(3L));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> orderService.slowCreate(3L));
+        assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, target.invocations.get());
+    }
+    
+    @Test
+    public void testNullResultCachedAndExceptionNot() {
+        OrderService target = new OrderService();
+        OrderService orderService = proxy(target);
+        assertNull(orderService.cancel(4L));
+        assertNull(orderService.cancel(4L));
+        assertEquals(1, target.invocations.get());
+        assertThrows(RuntimeException.class, () -> orderService.fail(5L));
+        assertThrows(RuntimeException.class, () -> orderService.fail(5L));
+        assertEquals(3, target.invocations.get());
+    }
+    
+    private static OrderService proxy(OrderService target) {
+        NebulaIdempotentAnnotationInterceptor interceptor = new NebulaIdempotentAnnotationInterceptor(new LocalDistributedLockTemplate(16, ForkJoinPool.commonPool()),
+                new LocalIdempotentResultStore());
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(new NebulaBaseAnnotationAdvisor(interceptor, NebulaIdempotent.class));
+        return (OrderService) proxyFactory.getProxy();
+    }
+    
+    public static class OrderService {
+        
+        private final AtomicInteger invocations = new AtomicInteger();
+        
+        @NebulaIdempotent(keyPre = "test-repeat-order", keyPost = "#id")
+        public String create(Long id) {
+            return "order-" + id + "-" + invocations.incrementAndGet();
+        }
+        
+        @NebulaIdempotent(keyPre = "test-concurrent-slow", keyPost = "#id")
+        public String slowCreate(Long id) {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return "order-" + id + "-" + invocations.incrementAndGet();
+        }
+        
+        @NebulaIdempotent(keyPre = "test-null-cancel", keyPost = "#id")
+        public Void cancel(Long id) {
+            invocations.incrementAndGet();
+            return null;
+        }
+        
+        @NebulaIdempotent(keyPre = "test-exception-fail", keyPost = "#id")
+        public String fail(Long id) {
+            invocations.incrementAndGet();
+            throw new IllegalStateException("fail");
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.core;
+
+import com.nebula.distribute.lock.enums.LockMode;
+import com.nebula.distribute.lock.exception.DistributedLockException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author : wh
+ * @date : 2024/9/27 16:50
+ * @description:
+ */
+public class JdbcDistributedLockTemplateTest {
+    
+    @Test
+    public void testLock() {
+        JdbcDistributedLockTemplate template = H2Database.create().template(null);
+        assertEquals("ok", template.lock(lock("order_1", () -> "ok"), 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        assertEquals("ok", template.tryLock(lock("order_1", () -> "ok"), 1, 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+    }
+    
+    @Test
+    public void testBusinessExceptionNotMasked() {
+        // 释放锁和恢复 autoCommit 都失败时仍抛出业务异常
+        JdbcDistributedLockTemplate template = H2Database.create().template(method -> "commit".equals(method) || "setAutoCommit".equals(method));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> template.lock(lock("order_2", () -> {
+            throw new IllegalArgumentException("business");
+        }), 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        assertEquals("business", e.getMessage());
+        assertEquals(1, e.getSuppressed().length);
+    }
+    
+    @Test
+    public void testReleaseFailReported() {
+        JdbcDistributedLockTemplate template = H2Database.create().template("commit"::equals);
+        DistributedLockException e = assertThrows(DistributedLockException.class,
+                () -> template.lock(lock("order_3", () -> "ok"), 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        assertTrue(e.getMessage().startsWith("lock release fail"), e.getMessage());
+    }
+    
+    @Test
+    public void testSecondCallerBlockedAndRowDeleted() throws Exception {
+        H2Database database = H2Database.create();
+        JdbcDistributedLockTemplate template = database.template(null);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(() -> template.lock(lock("order_4", () -> {
+            locked.countDown();
+            await(release);
+            return "held";
+        }), 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        // 行被持有期间第二个调用方阻塞，tryLock 超时失败
+        DistributedLockException e = assertThrows(DistributedLockException.class,
+                () -> template.tryLock(lock("order_4", () -> "ok"), 1, 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        assertEquals("lock fail", e.getMessage());
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() -> template.lock(lock("order_4", () -> "ok"), 5, TimeUnit.SECONDS,
+                LockMode.EXCLUSIVE));
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertFalse(waiter.isDone());
+        release.countDown();
+        assertEquals("held", holder.get(5, TimeUnit.SECONDS));
+        // 持有者删除行后等待者重新插入并加锁
+        assertEquals("ok", waiter.get(10, TimeUnit.SECONDS));
+        assertEquals(0, database.rowCount());
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private static <T> DistributedLock<T> lock(String lockName, Supplier<T> supplier) {
+        return new DistributedLock<>() {
+            
+            @Override
+            public T process() {
+                return supplier.get();
+            }
+            
+            @Override
+            public String lockName() {
+                return lockName;
+            }
+        };
+    }
+    
+    /**
+     * 每个用例独立的内存库，surefire 2.18.1 的 POJO provider 在同一实例上执行全部用例；
+     * 它在看不到 java.sql 模块的类加载器中扫描测试类，jdbc 相关代码放在嵌套类中延迟加载
+     */
+    private static final class H2Database {
+        
+        private static final AtomicInteger DATABASE_ID = new AtomicInteger();
+        
+        private final JdbcDataSource h2;
+        
+        private H2Database(JdbcDataSource h2) {
+            this.h2 = h2;
+        }
+        
+        static H2Database create() {
+            JdbcDataSource h2 = new JdbcDataSource();
+            h2.setURL("jdbc:h2:mem:nebula_lock_" + DATABASE_ID.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+            try (Connection connection = h2.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE nebula_distributed_lock (lock_name VARCHAR(255) NOT NULL PRIMARY KEY)");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return new H2Database(h2);
+        }
+        
+        int rowCount() {
+            try (Connection connection = h2.getConnection(); Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM nebula_distributed_lock")) {
+                rs.next();
+                return rs.getInt(1);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        
+        /**
+         * 在 autoCommit 已关闭后才让 failing 匹配的连接方法抛出 SQLException，模拟加锁成功后连接失效
+         *
+         * @param failing 方法名匹配，为 null 时不注入失败
+         */
+        JdbcDistributedLockTemplate template(Predicate<String> failing) {
+            DataSource dataSource = failing == null ? h2 : (DataSource) Proxy.newProxyInstance(H2Database.class.getClassLoader(),
+                    new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                        Object result = invoke(h2, method, args);
+                        return "getConnection".equals(method.getName()) ? failingConnection((Connection) result, failing) : result;
+                    });
+            return new JdbcDistributedLockTemplate(dataSource, "nebula_distributed_lock", ForkJoinPool.commonPool());
+        }
+        
+        private static Connection failingConnection(Connection connection, Predicate<String> failing) {
+            boolean[] locked = new boolean[1];
+            return (Connection) Proxy.newProxyInstance(H2Database.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                if (locked[0] && failing.test(method.getName())) {
+                    throw new SQLException(method.getName() + " fail");
+                }
+                if ("setAutoCommit".equals(method.getName()) && Boolean.FALSE.equals(args[0])) {
+                    locked[0] = true;
+                }
+                return invoke(connection, method, args);
+            });
+        }
+        
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
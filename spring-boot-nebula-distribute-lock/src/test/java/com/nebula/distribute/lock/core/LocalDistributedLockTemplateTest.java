@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.core;
+
+import com.nebula.distribute.lock.enums.LockMode;
+import com.nebula.distribute.lock.exception.DistributedLockException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author : wh
+ * @date : 2024/9/27 16:40
+ * @description:
+ */
+public class LocalDistributedLockTemplateTest {
+    
+    private final LocalDistributedLockTemplate template = new LocalDistributedLockTemplate(16, ForkJoinPool.commonPool());
+    
+    @Test
+    public void testReentrant() {
+        String result = template.tryLock(lock("order_1", () -> template.tryLock(lock("order_1", () -> "ok"), 1, 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE)),
+                1, 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE);
+        assertEquals("ok", result);
+    }
+    
+    @Test
+    public void testTryLockTimeout() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> holder = CompletableFuture.supplyAsync(() -> template.lock(lock("order_2", () -> {
+            locked.countDown();
+            await(release);
+            return null;
+        }), 10, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        assertThrows(DistributedLockException.class,
+                () -> template.tryLock(lock("order_2", () -> "ok"), 50, 5000, TimeUnit.MILLISECONDS, LockMode.EXCLUSIVE));
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertEquals("ok", template.tryLock(lock("order_2", () -> "ok"), 1, 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+    }
+    
+    @Test
+    public void testLeaseExpire() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> holder = CompletableFuture.supplyAsync(() -> template.lock(lock("order_3", () -> {
+            locked.countDown();
+            await(release);
+            return null;
+        }), 100, TimeUnit.MILLISECONDS, LockMode.EXCLUSIVE));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        assertEquals("ok", template.tryLock(lock("order_3", () -> "ok"), 5, 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+    }
+    
+    @Test
+    public void testReadersNotBlocked() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> reader = CompletableFuture.supplyAsync(() -> template.lock(lock("config", () -> {
+            locked.countDown();
+            await(release);
+            return null;
+        }), 10, TimeUnit.SECONDS, LockMode.READ));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        assertEquals("ok", template.tryLock(lock("config", () -> "ok"), 50, 5000, TimeUnit.MILLISECONDS, LockMode.READ));
+        assertThrows(DistributedLockException.class,
+                () -> template.tryLock(lock("config", () -> "ok"), 50, 5000, TimeUnit.MILLISECONDS, LockMode.WRITE));
+        release.countDown();
+        reader.get(5, TimeUnit.SECONDS);
+    }
+    
+    @Test
+    public void testAsyncExecutorBounded() throws Exception {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>());
+        try {
+            LocalDistributedLockTemplate boundedTemplate = new LocalDistributedLockTemplate(16, executor);
+            CountDownLatch locked = new CountDownLatch(1);
+            CompletableFuture<String> release = new CompletableFuture<>();
+            CompletableFuture<String> holder = boundedTemplate.lockAsync(asyncLock("order_4", () -> {
+                locked.countDown();
+                return release;
+            }), 10, TimeUnit.SECONDS, LockMode.EXCLUSIVE);
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+            // 唯一的线程被持有锁的异步任务占用，后续异步加锁被拒绝
+            CompletableFuture<String> rejected = boundedTemplate.lockAsync(asyncLock("order_5", () -> CompletableFuture.completedFuture("ok")),
+                    10, TimeUnit.SECONDS, LockMode.EXCLUSIVE);
+            ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(DistributedLockException.class, e.getCause());
+            release.complete("ok");
+            assertEquals("ok", holder.get(5, TimeUnit.SECONDS));
+            assertEquals("ok", boundedTemplate.tryLock(lock("order_5", () -> "ok"), 1, 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private static <T> AsyncDistributedLock<T> asyncLock(String lockName, Supplier<CompletableFuture<T>> supplier) {
+        return new AsyncDistributedLock<>() {
+            
+            @Override
+            public CompletableFuture<T> process() {
+                return supplier.get();
+            }
+            
+            @Override
+            public String lockName() {
+                return lockName;
+            }
+        };
+    }
+    
+    private static <T> DistributedLock<T> lock(String lockName, Supplier<T> supplier) {
+        return new DistributedLock<>() {
+            
+            @Override
+            public T process() {
+                return supplier.get();
+            }
+            
+            @Override
+            public String lockName() {
+                return lockName;
+            }
+        };
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.core;
+
+import com.nebula.distribute.lock.enums.LockMode;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author : wh
+ * @date : 2024/9/25 14:12
+ * @description:
+ */
+public class LocalStripedDistributedLockTemplateTest {
+    
+    @Test
+    public void testOneThreadPerKeyReachesDelegate() throws InterruptedException {
+        CountingTemplate delegate = new CountingTemplate();
+        LocalStripedDistributedLockTemplate template = new LocalStripedDistributedLockTemplate(delegate);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                try {
+                    template.tryLock(distributedLock("order_1"), 5, 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(1, delegate.maxConcurrent.get());
+        assertEquals(threads, delegate.calls.get());
+    }
+    
+    @Test
+    public void testNestedLocksWithDifferentModes() throws Exception {
+        LocalStripedDistributedLockTemplate template = new LocalStripedDistributedLockTemplate(new CountingTemplate());
+        // 不同锁名不共享本地锁，外层读锁不会阻塞内层写锁
+        CompletableFuture<String> nested = CompletableFuture.supplyAsync(() -> template.lock(distributedLock("config_a",
+                () -> template.tryLock(distributedLock("config_b",
+                        () -> template.lock(distributedLock("config_c", () -> "ok"), 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE)),
+                        1, 5, TimeUnit.SECONDS, LockMode.WRITE)),
+                5, TimeUnit.SECONDS, LockMode.READ));
+        assertEquals("ok", nested.get(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testDifferentKeysNotSerialized() throws Exception {
+        LocalStripedDistributedLockTemplate template = new LocalStripedDistributedLockTemplate(new CountingTemplate());
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> holder = CompletableFuture.supplyAsync(() -> template.lock(distributedLock("order_2", () -> {
+            locked.countDown();
+            await(release);
+            return null;
+        }), 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 64; i++) {
+            assertEquals("ok", template.tryLock(distributedLock("order_" + (i + 3), () -> "ok"), 50, 5000, TimeUnit.MILLISECONDS, LockMode.EXCLUSIVE));
+        }
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private static DistributedLock<Object> distributedLock(String lockName) {
+        return distributedLock(lockName, () -> null);
+    }
+    
+    private static <T> DistributedLock<T> distributedLock(String lockName, Supplier<T> supplier) {
+        return new DistributedLock<>() {
+            
+            @Override
+            public T process() {
+                return supplier.get();
+            }
+            
+            @Override
+            public String lockName() {
+                return lockName;
+            }
+        };
+    }
+    
+    private static class CountingTemplate implements NebulaDistributedLockTemplate {
+        
+        private final AtomicInteger concurrent = new AtomicInteger();
+        
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+        
+        private final AtomicInteger calls = new AtomicInteger();
+        
+        private <T> T enter(T result) {
+            calls.incrementAndGet();
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                TimeUnit.MILLISECONDS.sleep(10);
+            } catch (InterruptedException ignored) {
+            }
+            concurrent.decrementAndGet();
+            return result;
+        }
+        
+        @Override
+        public <T> T lock(DistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+            return enter(distributedLock.process());
+        }
+        
+        @Override
+        public <T> T tryLock(DistributedLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+            return enter(distributedLock.process());
+        }
+        
+        @Override
+        public <T> T multiLock(DistributedMultiLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+            return enter(distributedLock.process());
+        }
+        
+        @Override
+        public <T> T tryMultiLock(DistributedMultiLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+            return enter(distributedLock.process());
+        }
+        
+        @Override
+        public <T> CompletableFuture<T> lockAsync(AsyncDistributedLock<T> distributedLock, long outTime, TimeUnit timeUnit, LockMode lockMode) {
+            return distributedLock.process();
+        }
+        
+        @Override
+        public <T> CompletableFuture<T> tryLockAsync(AsyncDistributedLock<T> distributedLock, long tryOutTime, long outTime, TimeUnit timeUnit,
+                                                     LockMode lockMode) {
+            return distributedLock.process();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author : wh
+ * @date : 2024/9/29 14:30
+ * @description:
+ */
+public class LockLeaseRenewerTest {
+    
+    private final LockLeaseRenewer renewer = new LockLeaseRenewer(20, 100, TimeUnit.MILLISECONDS);
+    
+    @AfterEach
+    public void shutdown() {
+        renewer.shutdown();
+    }
+    
+    @Test
+    public void testRenewUntilCancel() throws InterruptedException {
+        AtomicInteger renewed = new AtomicInteger();
+        LockLeaseRenewer.Renewal renewal = renewer.register("order_1", () -> {
+            renewed.incrementAndGet();
+            return CompletableFuture.completedFuture(true);
+        });
+        Thread.sleep(150);
+        renewal.cancel();
+        int count = renewed.get();
+        assertTrue(count >= 2);
+        Thread.sleep(100);
+        assertEquals(count, renewed.get());
+    }
+    
+    @Test
+    public void testStopWhenLockLost() throws InterruptedException {
+        AtomicInteger renewed = new AtomicInteger();
+        renewer.register("order_2", () -> {
+            renewed.incrementAndGet();
+            return CompletableFuture.completedFuture(false);
+        });
+        Thread.sleep(150);
+        assertEquals(1, renewed.get());
+    }
+    
+    @Test
+    public void testLeaseTimeGreaterThanInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new LockLeaseRenewer(30, 30, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.core;
+
+import com.nebula.distribute.lock.enums.LockMode;
+import com.nebula.distribute.lock.exception.DistributedLockException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.redisson.misc.CompletableFutureWrapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author : wh
+ * @date : 2024/9/30 10:40
+ * @description:
+ */
+public class RedissonDistributedLockTemplateTest {
+    
+    private static final long AUTO_RENEW = NebulaDistributedLockTemplate.AUTO_RENEW_OUT_TIME;
+    
+    @Test
+    public void testMultiLockOneRoundTrip() {
+        FakeRedisson redisson = new FakeRedisson(new Config());
+        RedissonDistributedLockTemplate template = new RedissonDistributedLockTemplate(redisson.client());
+        assertEquals("ok", template.multiLock(multiLock(Arrays.asList("sku_3", "sku_1", "sku_2", "sku_1"), () -> "ok"),
+                5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        // 一次脚本加锁全部 key，一次脚本释放
+        assertEquals(2, redisson.evals.size());
+        Eval lock = redisson.evals.get(0);
+        assertTrue(lock.isLock());
+        assertEquals(Arrays.asList("sku_1", "sku_2", "sku_3"), lock.keys);
+        assertEquals(Arrays.asList("5000", "node:" + Thread.currentThread().getId()), lock.args);
+        Eval unlock = redisson.evals.get(1);
+        assertEquals(Arrays.asList("sku_1", "sku_2", "sku_3"), unlock.keys);
+        assertEquals(Arrays.asList("0", "5000", "node:" + Thread.currentThread().getId(), "redisson_lock__channel:{sku_1}",
+                "redisson_lock__channel:{sku_2}", "redisson_lock__channel:{sku_3}"), unlock.args);
+        assertTrue(redisson.multiLockCalls.isEmpty());
+    }
+    
+    @Test
+    public void testTryMultiLockRetriesUntilFree() {
+        FakeRedisson redisson = new FakeRedisson(new Config());
+        redisson.lockResponses.add(20L);
+        RedissonDistributedLockTemplate template = new RedissonDistributedLockTemplate(redisson.client());
+        assertEquals("ok", template.tryMultiLock(multiLock(Arrays.asList("sku_1", "sku_2"), () -> "ok"),
+                5, 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        assertEquals(3, redisson.evals.size());
+        assertTrue(redisson.evals.get(0).isLock());
+        assertTrue(redisson.evals.get(1).isLock());
+    }
+    
+    @Test
+    public void testTryMultiLockTimeout() {
+        FakeRedisson redisson = new FakeRedisson(new Config());
+        for (int i = 0; i < 1000; i++) {
+            redisson.lockResponses.add(10_000L);
+        }
+        RedissonDistributedLockTemplate template = new RedissonDistributedLockTemplate(redisson.client());
+        assertThrows(DistributedLockException.class, () -> template.tryMultiLock(multiLock(Arrays.asList("sku_1", "sku_2"), () -> "ok"),
+                50, 5000, TimeUnit.MILLISECONDS, LockMode.EXCLUSIVE));
+        // 未加锁成功不执行释放脚本
+        assertTrue(redisson.evals.stream().allMatch(Eval::isLock));
+    }
+    
+    @Test
+    public void testClusterCrossSlotFallsBackToMultiLock() {
+        Config config = new Config();
+        config.useClusterServers();
+        FakeRedisson redisson = new FakeRedisson(config);
+        RedissonDistributedLockTemplate template = new RedissonDistributedLockTemplate(redisson.client(), null, ForkJoinPool.commonPool());
+        assertEquals("ok", template.multiLock(multiLock(Arrays.asList("sku_1", "sku_2"), () -> "ok"), 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        assertTrue(redisson.evals.isEmpty());
+        assertEquals(Arrays.asList("lock", "unlock"), redisson.multiLockCalls);
+        // 同一 hashtag 的 key 落在同一 slot，仍使用脚本
+        assertEquals("ok", template.multiLock(multiLock(Arrays.asList("{sku}_1", "{sku}_2"), () -> "ok"), 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        assertEquals(2, redisson.evals.size());
+    }
+    
+    @Test
+    public void testLockAsyncProcessOnExecutor() throws Exception {
+        FakeRedisson redisson = new FakeRedisson(new Config());
+        AtomicInteger executed = new AtomicInteger();
+        Executor executor = command -> {
+            executed.incrementAndGet();
+            ForkJoinPool.commonPool().execute(command);
+        };
+        RedissonDistributedLockTemplate template = new RedissonDistributedLockTemplate(redisson.client(), null, executor);
+        CompletableFuture<String> result = template.lockAsync(asyncLock("order_1", () -> CompletableFuture.completedFuture("ok")),
+                5, TimeUnit.SECONDS, LockMode.EXCLUSIVE);
+        assertEquals("ok", result.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executed.get());
+        awaitLockCalls(redisson, 2);
+        assertEquals(Arrays.asList("lockAsync", "unlockAsync"), redisson.lockMethods());
+        assertEquals(redisson.lockIds.get(0), redisson.lockIds.get(1));
+    }
+    
+    @Test
+    public void testLockAsyncReleasedWhenExecutorRejects() throws Exception {
+        FakeRedisson redisson = new FakeRedisson(new Config());
+        Executor executor = command -> {
+            throw new RejectedExecutionException("busy");
+        };
+        RedissonDistributedLockTemplate template = new RedissonDistributedLockTemplate(redisson.client(), null, executor);
+        AtomicInteger processed = new AtomicInteger();
+        Supplier<CompletableFuture<String>> process = () -> {
+            processed.incrementAndGet();
+            return CompletableFuture.completedFuture("ok");
+        };
+        CompletableFuture<String> locked = template.lockAsync(asyncLock("order_2", process), AUTO_RENEW, TimeUnit.SECONDS, LockMode.EXCLUSIVE);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> locked.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DistributedLockException.class, e.getCause());
+        // 已加的锁按同一个锁id释放，避免看门狗一直续期
+        assertEquals(Arrays.asList("lockAsync", "unlockAsync"), redisson.lockMethods());
+        assertEquals(redisson.lockIds.get(0), redisson.lockIds.get(1));
+        
+        CompletableFuture<String> tryLocked = template.tryLockAsync(asyncLock("order_3", process), 1, AUTO_RENEW, TimeUnit.SECONDS, LockMode.EXCLUSIVE);
+        e = assertThrows(ExecutionException.class, () -> tryLocked.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DistributedLockException.class, e.getCause());
+        assertEquals(Arrays.asList("lockAsync", "unlockAsync", "tryLockAsync", "unlockAsync"), redisson.lockMethods());
+        assertEquals(redisson.lockIds.get(2), redisson.lockIds.get(3));
+        assertEquals(0, processed.get());
+    }
+    
+    @Test
+    public void testTryLockAsyncNotAcquired() {
+        FakeRedisson redisson = new FakeRedisson(new Config());
+        redisson.tryLockResult = false;
+        RedissonDistributedLockTemplate template = new RedissonDistributedLockTemplate(redisson.client());
+        CompletableFuture<String> result = template.tryLockAsync(asyncLock("order_4", () -> CompletableFuture.completedFuture("ok")),
+                1, 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DistributedLockException.class, e.getCause());
+        // 未加锁成功不释放
+        assertEquals(Arrays.asList("tryLockAsync"), redisson.lockMethods());
+    }
+    
+    /**
+     * 释放锁在业务 future 完成后异步发起
+     */
+    private static void awaitLockCalls(FakeRedisson redisson, int count) throws InterruptedException {
+        for (int i = 0; i < 500 && redisson.lockMethods().size() < count; i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+    
+    private static <T> AsyncDistributedLock<T> asyncLock(String lockName, Supplier<CompletableFuture<T>> supplier) {
+        return new AsyncDistributedLock<>() {
+            
+            @Override
+            public CompletableFuture<T> process() {
+                return supplier.get();
+            }
+            
+            @Override
+            public String lockName() {
+                return lockName;
+            }
+        };
+    }
+    
+    private static <T> DistributedMultiLock<T> multiLock(List<String> lockNames, Supplier<T> supplier) {
+        return new DistributedMultiLock<>() {
+            
+            @Override
+            public T process() {
+                return supplier.get();
+            }
+            
+            @Override
+            public List<String> lockNames() {
+                return lockNames;
+            }
+        };
+    }
+    
+    /**
+     * 一次脚本调用
+     */
+    private static final class Eval {
+        
+        private final String script;
+        
+        private final List<Object> keys;
+        
+        private final List<Object> args;
+        
+        private Eval(String script, List<Object> keys, List<Object> args) {
+            this.script = script;
+            this.keys = keys;
+            this.args = args;
+        }
+        
+        boolean isLock() {
+            return script.contains("pttl");
+        }
+    }
+    
+    /**
+     * 记录脚本调用的 RedissonClient，加锁脚本按 lockResponses 依次返回，为空时返回 nil 表示加锁成功
+     */
+    private static final class FakeRedisson {
+        
+        private final Config config;
+        
+        private final List<Eval> evals = new ArrayList<>();
+        
+        private final Deque<Long> lockResponses = new ArrayDeque<>();
+        
+        private final List<String> multiLockCalls = new ArrayList<>();
+        
+        private final List<String> lockCalls = new ArrayList<>();
+        
+        private final List<Long> lockIds = new ArrayList<>();
+        
+        private volatile boolean tryLockResult = true;
+        
+        private FakeRedisson(Config config) {
+            this.config = config;
+        }
+        
+        RedissonClient client() {
+            return proxy(RedissonClient.class, (method, args) -> {
+                switch (method) {
+                    case "getId":
+                        return "node";
+                    case "getConfig":
+                        return config;
+                    case "getScript":
+                        return script();
+                    case "getLock":
+                        return lock();
+                    case "getMultiLock":
+                        return proxy(RLock.class, (lockMethod, lockArgs) -> {
+                            multiLockCalls.add(lockMethod);
+                            return null;
+                        });
+                    default:
+                        throw new UnsupportedOperationException(method);
+                }
+            });
+        }
+        
+        synchronized List<String> lockMethods() {
+            return new ArrayList<>(lockCalls);
+        }
+        
+        /**
+         * 异步方法记录调用与锁id，最后一个参数为锁id
+         */
+        private RLock lock() {
+            return proxy(RLock.class, (method, args) -> {
+                synchronized (this) {
+                    lockCalls.add(method);
+                    if (args.length > 0 && args[args.length - 1] instanceof Long) {
+                        lockIds.add((Long) args[args.length - 1]);
+                    }
+                }
+                switch (method) {
+                    case "lockAsync":
+                    case "unlockAsync":
+                        return new CompletableFutureWrapper<>((Void) null);
+                    case "tryLockAsync":
+                        return new CompletableFutureWrapper<>(tryLockResult);
+                    default:
+                        return null;
+                }
+            });
+        }
+        
+        private RScript script() {
+            return proxy(RScript.class, (method, args) -> {
+                if (!"eval".equals(method) || args.length != 6) {
+                    throw new UnsupportedOperationException(method);
+                }
+                @SuppressWarnings("unchecked")
+                Eval eval = new Eval((String) args[2], (List<Object>) args[4], Arrays.asList((Object[]) args[5]));
+                evals.add(eval);
+                return eval.isLock() ? lockResponses.poll() : (Object) 0L;
+            });
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static <P> P proxy(Class<P> type, Handler handler) {
+            return (P) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (method.getDeclaringClass() == Object.class) {
+                    return "toString".equals(method.getName()) ? type.getSimpleName() : method.invoke(handler, args);
+                }
+                return handler.handle(method.getName(), args == null ? new Object[0] : args);
+            });
+        }
+    }
+    
+    @FunctionalInterface
+    private interface Handler {
+        
+        Object handle(String method, Object[] args);
+    }
+}
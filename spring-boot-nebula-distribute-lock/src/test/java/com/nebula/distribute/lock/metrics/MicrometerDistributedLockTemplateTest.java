@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.distribute.lock.metrics;
+
+import com.nebula.distribute.lock.core.DistributedLock;
+import com.nebula.distribute.lock.core.LocalDistributedLockTemplate;
+import com.nebula.distribute.lock.enums.LockMode;
+import com.nebula.distribute.lock.exception.DistributedLockException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author : wh
+ * @date : 2024/9/28 14:10
+ * @description:
+ */
+public class MicrometerDistributedLockTemplateTest {
+    
+    /**
+     * 每个用例使用独立的 registry，surefire 2.18.1 的 POJO provider 在同一实例上执行全部用例
+     */
+    @Test
+    public void testAcquireAndHold() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerDistributedLockTemplate template = template(registry);
+        template.lock(lock("order_1", () -> {
+            assertEquals(1.0, registry.get(MicrometerDistributedLockTemplate.METRIC_HELD).gauge().value());
+            return null;
+        }), 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE);
+        template.lock(lock("order_2", () -> null), 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE);
+        
+        assertEquals(2, registry.get(MicrometerDistributedLockTemplate.METRIC_ACQUIRE).tag("pattern", "order_#id").tag("mode", "exclusive").timer().count());
+        assertEquals(2, registry.get(MicrometerDistributedLockTemplate.METRIC_HOLD).tag("pattern", "order_#id").timer().count());
+        assertEquals(0.0, registry.get(MicrometerDistributedLockTemplate.METRIC_HELD).gauge().value());
+    }
+    
+    @Test
+    public void testFailure() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerDistributedLockTemplate template = template(registry);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> holder = CompletableFuture.supplyAsync(() -> template.lock(lock("order_3", () -> {
+            locked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return null;
+        }), 10, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        assertThrows(DistributedLockException.class,
+                () -> template.tryLock(lock("order_3", () -> null), 50, 5000, TimeUnit.MILLISECONDS, LockMode.EXCLUSIVE));
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        // 业务异常不计入获取锁失败
+        assertThrows(IllegalStateException.class, () -> template.lock(lock("order_4", () -> {
+            throw new IllegalStateException();
+        }), 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE));
+        
+        assertEquals(1.0, registry.get(MicrometerDistributedLockTemplate.METRIC_FAILURE).tag("reason", "timeout").counter().count());
+        assertEquals(0.0, registry.get(MicrometerDistributedLockTemplate.METRIC_FAILURE).tag("reason", "error").counter().count());
+    }
+    
+    @Test
+    public void testDefaultPatternNotTagLockName() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerDistributedLockTemplate template = template(registry);
+        for (long id = 0; id < 3; id++) {
+            String lockName = "order_" + id;
+            template.lock(new DistributedLock<Void>() {
+                
+                @Override
+                public Void process() {
+                    return null;
+                }
+                
+                @Override
+                public String lockName() {
+                    return lockName;
+                }
+            }, 5, TimeUnit.SECONDS, LockMode.EXCLUSIVE);
+        }
+        assertEquals(1, registry.find(MicrometerDistributedLockTemplate.METRIC_ACQUIRE).timers().size());
+        assertEquals(3, registry.get(MicrometerDistributedLockTemplate.METRIC_ACQUIRE).tag("pattern", DistributedLock.PROGRAMMATIC_PATTERN).timer().count());
+    }
+    
+    private static MicrometerDistributedLockTemplate template(SimpleMeterRegistry registry) {
+        return new MicrometerDistributedLockTemplate(new LocalDistributedLockTemplate(16, ForkJoinPool.commonPool()), registry, false);
+    }
+    
+    private static <T> DistributedLock<T> lock(String lockName, Supplier<T> supplier) {
+        return new DistributedLock<>() {
+            
+            @Override
+            public T process() {
+                return supplier.get();
+            }
+            
+            @Override
+            public String lockName() {
+                return lockName;
+            }
+            
+            @Override
+            public String lockPattern() {
+                return "order_#id";
+            }
+        };
+    }
+}
@@ -17,10 +17,24 @@
  
 package com.nebula.mybatis.entity;
 
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.TableField;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
+ * 可选的脏字段跟踪：调用 {@link #markDirty(String...)} 后开启，
+ * 通过 {@link com.nebula.mybatis.mapper.NebulaBaseMapper#updateDirtyById(BaseDO)} 只更新变化的列和 updateTime。
+ * 变化的属性可以通过 {@link DirtyMarkingChangeSink} 从 AggregateDiff 的变化事件标记，也可以在 setter 中手动标记
+ *
  * @author : wh
  * @date : 2024/3/11 13:06
  * @description:
@@ -33,9 +47,60 @@ public class BaseDO {
     /**
      * 创建时间
      */
+    @TableField(fill = FieldFill.INSERT)
     private LocalDateTime addTime;
     /**
      * 更新时间
      */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
     private LocalDateTime updateTime;
+    
+    /**
+     * 为 null 表示未开启跟踪
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient Set<String> dirtyProperties;
+    
+    /**
+     * 标记发生变化的属性并开启脏字段跟踪，不传参数时只开启跟踪
+     *
+     * @param properties 属性名
+     */
+    public void markDirty(String... properties) {
+        if (dirtyProperties == null) {
+            dirtyProperties = new HashSet<>();
+        }
+        Collections.addAll(dirtyProperties, properties);
+    }
+    
+    /**
+     * 属性是否需要更新，未开启跟踪时所有属性都需要更新
+     *
+     * @param property 属性名
+     * @return true 需要更新
+     */
+    public boolean isDirty(String property) {
+        return dirtyProperties == null || dirtyProperties.contains(property);
+    }
+    
+    /**
+     * @return 已标记的属性，未开启跟踪时为空
+     */
+    public Set<String> dirtyProperties() {
+        return dirtyProperties == null ? Collections.emptySet() : Collections.unmodifiableSet(dirtyProperties);
+    }
+    
+    /**
+     * 更新完成后清除标记并关闭跟踪
+     */
+    public void clearDirty() {
+        dirtyProperties = null;
+    }
+    
+    boolean dirtyTracking() {
+        return dirtyProperties != null;
+    }
 }
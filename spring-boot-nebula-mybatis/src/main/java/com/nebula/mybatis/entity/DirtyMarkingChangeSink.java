@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.mybatis.entity;
+
+import com.nebula.aggregate.core.AggregateChangeSink;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 把 {@link com.nebula.aggregate.core.AggregateDiff#changes(AggregateChangeSink)} 的属性变化标记到对应的 {@link BaseDO} 上，
+ * 随后通过 {@link com.nebula.mybatis.mapper.NebulaBaseMapper#updateDirtyById(BaseDO)} 只更新变化的列
+ * <p>
+ * 需要引入 spring-boot-nebula-aggregate，新增和删除的对象不会标记，由调用方 insert 或 delete
+ *
+ * @author : wh
+ * @date : 2024/10/12 16:10
+ * @description:
+ */
+public class DirtyMarkingChangeSink implements AggregateChangeSink {
+    
+    private final Function<Object, ? extends BaseDO> resolver;
+    
+    private final Map<String, String> propertyMapping;
+    
+    /**
+     * @param resolver        根据发生变化的领域对象找到对应的 DO，返回 null 表示不需要标记
+     * @param propertyMapping 领域对象属性名到 DO 属性名的映射，未映射的属性按同名处理
+     */
+    public DirtyMarkingChangeSink(Function<Object, ? extends BaseDO> resolver, Map<String, String> propertyMapping) {
+        this.resolver = resolver;
+        this.propertyMapping = propertyMapping;
+    }
+    
+    public DirtyMarkingChangeSink(Function<Object, ? extends BaseDO> resolver) {
+        this(resolver, Map.of());
+    }
+    
+    /**
+     * 只把 source 自身的属性变化标记到 target 上，适用于聚合根与 DO 一一对应的场景
+     *
+     * @param source 领域对象（新版本）
+     * @param target 对应的 DO
+     */
+    public static DirtyMarkingChangeSink of(Object source, BaseDO target) {
+        return new DirtyMarkingChangeSink(object -> object == source ? target : null);
+    }
+    
+    @Override
+    public void propertyChanged(Object object, String property, Object oldValue, Object newValue) {
+        BaseDO target = resolver.apply(object);
+        if (target != null) {
+            target.markDirty(propertyMapping.getOrDefault(property, property));
+        }
+    }
+}
@@ -36,6 +36,12 @@ public class NebulaMetaObjectHandler implements MetaObjectHandler {
     
     @Override
     public void updateFill(MetaObject metaObject) {
+        Object entity = metaObject.getOriginalObject();
+        if (entity instanceof BaseDO && ((BaseDO) entity).dirtyTracking()) {
+            // 部分更新的实体通常是查询出来的，updateTime 已有值，strict 填充不会覆盖
+            this.setFieldValByName("updateTime", LocalDateTime.now(), metaObject);
+            return;
+        }
         this.strictUpdateFill(metaObject, "updateTime", LocalDateTime::now, LocalDateTime.class);
     }
 }
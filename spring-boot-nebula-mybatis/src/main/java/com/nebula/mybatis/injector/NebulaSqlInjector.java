@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.mybatis.injector;
+
+import com.baomidou.mybatisplus.core.injector.AbstractMethod;
+import com.baomidou.mybatisplus.core.injector.DefaultSqlInjector;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.nebula.mybatis.entity.BaseDO;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在默认方法之外为 {@link BaseDO} 子类注入 {@link UpdateDirtyById}
+ * <p>
+ * 使用 {@code GlobalConfig#setSqlInjector(new NebulaSqlInjector())} 注册
+ *
+ * @author : wh
+ * @date : 2024/10/12 15:40
+ * @description:
+ */
+public class NebulaSqlInjector extends DefaultSqlInjector {
+    
+    @Override
+    public List<AbstractMethod> getMethodList(Class<?> mapperClass, TableInfo tableInfo) {
+        List<AbstractMethod> methodList = new ArrayList<>(super.getMethodList(mapperClass, tableInfo));
+        if (tableInfo.havePK() && BaseDO.class.isAssignableFrom(tableInfo.getEntityType())) {
+            methodList.add(new UpdateDirtyById());
+        }
+        return methodList;
+    }
+}
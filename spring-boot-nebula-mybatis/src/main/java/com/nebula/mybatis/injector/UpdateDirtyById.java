@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.mybatis.injector;
+
+import com.baomidou.mybatisplus.core.enums.SqlMethod;
+import com.baomidou.mybatisplus.core.injector.AbstractMethod;
+import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.toolkit.sql.SqlScriptUtils;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+
+/**
+ * 按脏字段更新：只 SET {@link com.nebula.mybatis.entity.BaseDO#isDirty(String)} 为 true 的列，
+ * 自动填充的列（如 updateTime）和乐观锁 {@code @Version} 列始终更新，被标记的属性即使为 null 也会更新
+ *
+ * @author : wh
+ * @date : 2024/10/12 15:20
+ * @description:
+ */
+public class UpdateDirtyById extends AbstractMethod {
+    
+    public static final String METHOD = "updateDirtyById";
+    
+    public UpdateDirtyById() {
+        super(METHOD);
+    }
+    
+    @Override
+    public MappedStatement injectMappedStatement(Class<?> mapperClass, Class<?> modelClass, TableInfo tableInfo) {
+        StringBuilder sqlSet = new StringBuilder();
+        for (TableFieldInfo fieldInfo : tableInfo.getFieldList()) {
+            if (fieldInfo.isLogicDelete()) {
+                continue;
+            }
+            if (fieldInfo.isWithUpdateFill() || fieldInfo.isVersion()) {
+                // 乐观锁插件把新版本号写回实体，版本列不随脏标记跳过
+                sqlSet.append(fieldInfo.getSqlSet(true, ENTITY_DOT));
+            } else {
+                // 双引号避免 OGNL 把单字符属性名解析成 char
+                String test = String.format("%sisDirty(&quot;%s&quot;)", ENTITY_DOT, fieldInfo.getProperty());
+                sqlSet.append(SqlScriptUtils.convertIf(fieldInfo.getSqlSet(true, ENTITY_DOT), test, false));
+            }
+        }
+        String additional = optlockVersion(tableInfo) + tableInfo.getLogicDeleteSql(true, true);
+        String sql = String.format(SqlMethod.UPDATE_BY_ID.getSql(), tableInfo.getTableName(), SqlScriptUtils.convertSet(sqlSet.toString()),
+                tableInfo.getKeyColumn(), ENTITY_DOT + tableInfo.getKeyProperty(), additional);
+        SqlSource sqlSource = super.createSqlSource(configuration, sql, modelClass);
+        return addUpdateMappedStatement(mapperClass, modelClass, methodName, sqlSource);
+    }
+}
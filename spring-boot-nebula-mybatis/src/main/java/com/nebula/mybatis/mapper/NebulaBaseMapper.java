@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.mybatis.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import com.nebula.mybatis.entity.BaseDO;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 需要注册 {@link com.nebula.mybatis.injector.NebulaSqlInjector}
+ *
+ * @author : wh
+ * @date : 2024/10/12 15:45
+ * @description:
+ */
+public interface NebulaBaseMapper<T extends BaseDO> extends BaseMapper<T> {
+    
+    /**
+     * 只更新 {@link BaseDO#markDirty(String...)} 标记的列和 updateTime，未开启跟踪时更新全部列（包括 null）
+     * <p>
+     * 不会清除标记，更新成功后按需调用 {@link BaseDO#clearDirty()}
+     *
+     * @param entity 实体
+     * @return 影响行数
+     */
+    int updateDirtyById(@Param(Constants.ENTITY) T entity);
+}
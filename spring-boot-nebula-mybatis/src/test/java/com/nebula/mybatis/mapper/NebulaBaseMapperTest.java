@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.mybatis.mapper;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.annotation.Version;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.baomidou.mybatisplus.core.config.GlobalConfig;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import com.baomidou.mybatisplus.core.toolkit.GlobalConfigUtils;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.OptimisticLockerInnerInterceptor;
+import com.nebula.aggregate.core.AggregateDiff;
+import com.nebula.mybatis.entity.BaseDO;
+import com.nebula.mybatis.entity.DirtyMarkingChangeSink;
+import com.nebula.mybatis.entity.NebulaMetaObjectHandler;
+import com.nebula.mybatis.injector.NebulaSqlInjector;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author : wh
+ * @date : 2024/10/12 16:30
+ * @description:
+ */
+public class NebulaBaseMapperTest {
+    
+    @Test
+    public void testUpdateDirtyColumnsOnly() {
+        SqlSessionFactory sqlSessionFactory = H2Database.sqlSessionFactory();
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            UserMapper mapper = sqlSession.getMapper(UserMapper.class);
+            UserDO user = mapper.selectById(1L);
+            user.setName("changed");
+            user.setAge(20);
+            user.markDirty("age");
+            
+            String sql = updateDirtySql(sqlSessionFactory, user);
+            assertTrue(sql.contains("age=?"), sql);
+            assertTrue(sql.contains("version=?"), sql);
+            assertTrue(sql.contains("update_time=?"), sql);
+            assertFalse(sql.contains("name=?"), sql);
+            
+            assertEquals(1, mapper.updateDirtyById(user));
+            UserDO updated = mapper.selectById(1L);
+            assertEquals("init", updated.getName());
+            assertEquals(20, updated.getAge());
+            assertEquals(2, updated.getVersion());
+            assertNotNull(updated.getUpdateTime());
+        }
+    }
+    
+    @Test
+    public void testStaleVersionRejected() {
+        try (SqlSession sqlSession = H2Database.sqlSessionFactory().openSession(true)) {
+            UserMapper mapper = sqlSession.getMapper(UserMapper.class);
+            UserDO first = mapper.selectById(1L);
+            // 一级缓存会返回同一个对象
+            sqlSession.clearCache();
+            UserDO second = mapper.selectById(1L);
+            first.markDirty("age");
+            first.setAge(20);
+            second.markDirty("name");
+            second.setName("changed");
+            
+            assertEquals(1, mapper.updateDirtyById(first));
+            assertEquals(0, mapper.updateDirtyById(second));
+            assertEquals("init", mapper.selectById(1L).getName());
+        }
+    }
+    
+    @Test
+    public void testMarkDirtyFromAggregateDiff() {
+        User old = new User();
+        old.setName("init");
+        old.setAge(18);
+        User current = new User();
+        current.setName("init");
+        current.setAge(20);
+        
+        try (SqlSession sqlSession = H2Database.sqlSessionFactory().openSession(true)) {
+            UserMapper mapper = sqlSession.getMapper(UserMapper.class);
+            UserDO user = mapper.selectById(1L);
+            user.setName(current.getName());
+            user.setAge(current.getAge());
+            new AggregateDiff(old, current).changes(DirtyMarkingChangeSink.of(current, user));
+            assertEquals(Set.of("age"), user.dirtyProperties());
+            
+            assertEquals(1, mapper.updateDirtyById(user));
+            assertEquals(20, mapper.selectById(1L).getAge());
+        }
+    }
+    
+    private static String updateDirtySql(SqlSessionFactory sqlSessionFactory, UserDO user) {
+        MapperMethod.ParamMap<Object> param = new MapperMethod.ParamMap<>();
+        param.put(Constants.ENTITY, user);
+        return sqlSessionFactory.getConfiguration().getMappedStatement(UserMapper.class.getName() + ".updateDirtyById")
+                .getBoundSql(param).getSql().replaceAll("\\s+", "");
+    }
+    
+    /**
+     * 每个用例独立的内存库，surefire 2.18.1 的 POJO provider 在同一实例上执行全部用例；
+     * 它在看不到 java.sql 模块的类加载器中扫描测试类，jdbc 相关代码放在嵌套类中延迟加载
+     */
+    private static final class H2Database {
+        
+        private static final AtomicInteger DATABASE_ID = new AtomicInteger();
+        
+        static SqlSessionFactory sqlSessionFactory() {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:nebula_mapper_" + DATABASE_ID.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE t_user (id BIGINT PRIMARY KEY, name VARCHAR(64), age INT, version INT, "
+                        + "add_time TIMESTAMP, update_time TIMESTAMP)");
+                statement.execute("INSERT INTO t_user (id, name, age, version) VALUES (1, 'init', 18, 1)");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            MybatisConfiguration configuration = new MybatisConfiguration();
+            configuration.setEnvironment(new Environment("test", new JdbcTransactionFactory(), dataSource));
+            configuration.setMapUnderscoreToCamelCase(true);
+            GlobalConfig globalConfig = GlobalConfigUtils.getGlobalConfig(configuration);
+            globalConfig.setSqlInjector(new NebulaSqlInjector());
+            globalConfig.setMetaObjectHandler(new NebulaMetaObjectHandler());
+            MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+            interceptor.addInnerInterceptor(new OptimisticLockerInnerInterceptor());
+            configuration.addInterceptor(interceptor);
+            configuration.addMapper(UserMapper.class);
+            return new MybatisSqlSessionFactoryBuilder().build(configuration);
+        }
+    }
+    
+    @Data
+    public static class User {
+        
+        private String name;
+        
+        private Integer age;
+    }
+    
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    @TableName("t_user")
+    public static class UserDO extends BaseDO {
+        
+        private String name;
+        
+        private Integer age;
+        
+        @Version
+        private Integer version;
+    }
+    
+    public interface UserMapper extends NebulaBaseMapper<UserDO> {
+    }
+}
@@ -22,6 +22,7 @@ import com.baomidou.mybatisplus.core.config.GlobalConfig;
 import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
 import com.nebula.mybatis.entity.NebulaMetaObjectHandler;
 import com.nebula.mybatis.handler.ArrayTypeHandler;
+import com.nebula.mybatis.injector.NebulaSqlInjector;
 import javax.sql.DataSource;
 import org.apache.ibatis.type.JdbcType;
 import org.mybatis.spring.annotation.MapperScan;
@@ -55,6 +56,7 @@ public class MybatisPlusConfig {
         GlobalConfig globalConfig = new GlobalConfig();
         globalConfig.setBanner(false);
         globalConfig.setMetaObjectHandler(new NebulaMetaObjectHandler());
+        globalConfig.setSqlInjector(new NebulaSqlInjector());
         factoryBean.setGlobalConfig(globalConfig);
         factoryBean.setConfiguration(configuration);
         return factoryBean;
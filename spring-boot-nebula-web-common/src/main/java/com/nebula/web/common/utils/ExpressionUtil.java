@@ -17,12 +17,19 @@
  
 package com.nebula.web.common.utils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import java.lang.reflect.Method;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import org.springframework.core.LocalVariableTableParameterNameDiscoverer;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 
@@ -33,10 +40,60 @@ import org.springframework.expression.spel.support.StandardEvaluationContext;
  */
 public class ExpressionUtil {
     
-    private static final ExpressionParser parser = new SpelExpressionParser();
+    /**
+     * 表达式缓存最大数量
+     */
+    private static final long EXPRESSION_CACHE_MAXIMUM_SIZE = 1024;
+    
+    private static final String[] EMPTY_PARAMETER_NAMES = new String[0];
     
     private static final LocalVariableTableParameterNameDiscoverer discoverer = new LocalVariableTableParameterNameDiscoverer();
     
+    /**
+     * 解析器及其解析出的表达式缓存，切换编译模式时整体替换，避免旧解析器的结果写入新缓存
+     */
+    private static volatile ParsedExpressions expressions = new ParsedExpressions(new SpelExpressionParser());
+    
+    /**
+     * 方法参数名缓存
+     */
+    private static final Map<Method, String[]> PARAMETER_NAMES_CACHE = new ConcurrentHashMap<>();
+    
+    /**
+     * 设置SpEL编译模式，IMMEDIATE/MIXED 会将热点表达式编译为字节码；设置后使用新的解析器和新的表达式缓存，之后获取的表达式按新模式解析
+     * <p>
+     * 已被调用方持有的 Expression 保持原有编译模式，如已缓存的 NebulaDistributedLockPlan 中预编译的锁名表达式，应在启动时加锁方法首次调用前设置
+     * <p>
+     * 默认 OFF，也可以通过 spring.expression.compiler.mode 配置
+     *
+     * @param compilerMode 编译模式
+     */
+    public static synchronized void setCompilerMode(SpelCompilerMode compilerMode) {
+        expressions = new ParsedExpressions(new SpelExpressionParser(new SpelParserConfiguration(compilerMode, ExpressionUtil.class.getClassLoader())));
+    }
+    
+    /**
+     * 获取已解析的表达式，不存在则解析并缓存
+     *
+     * @param expressionString 表达式字符串
+     * @return Expression
+     */
+    public static Expression getExpression(String expressionString) {
+        return expressions.get(expressionString);
+    }
+    
+    /**
+     * 计算已解析的表达式
+     *
+     * @param expression 表达式
+     * @param method     方法
+     * @param args       参数
+     * @return 计算结果
+     */
+    public static Object getValue(Expression expression, Method method, Object[] args) {
+        return expression.getValue(createEvaluationContext(method, args));
+    }
+    
     /**
      * 解析EL表达式
      *
@@ -100,16 +157,27 @@ public class ExpressionUtil {
      * @return EvaluationContext
      */
     private static EvaluationContext createEvaluationContext(Method method, Object[] args) {
-        String[] paramNames = discoverer.getParameterNames(method);
+        String[] paramNames = getParameterNames(method);
         EvaluationContext context = new StandardEvaluationContext();
-        if (paramNames != null) {
-            for (int i = 0; i < paramNames.length; i++) {
-                context.setVariable(paramNames[i], args[i]);
-            }
+        for (int i = 0; i < paramNames.length; i++) {
+            context.setVariable(paramNames[i], args[i]);
         }
         return context;
     }
     
+    /**
+     * 获取方法参数名，结果按方法缓存
+     *
+     * @param method 方法
+     * @return 参数名，获取不到返回空数组
+     */
+    private static String[] getParameterNames(Method method) {
+        return PARAMETER_NAMES_CACHE.computeIfAbsent(method, m -> {
+            String[] paramNames = discoverer.getParameterNames(m);
+            return paramNames == null ? EMPTY_PARAMETER_NAMES : paramNames;
+        });
+    }
+    
     /**
      * 创建EvaluationContext
      *
@@ -130,8 +198,7 @@ public class ExpressionUtil {
      * @return 解析结果
      */
     private static Object parseExpression(String expressionString, EvaluationContext context) {
-        Expression expression = parser.parseExpression(expressionString);
-        return expression.getValue(context);
+        return getExpression(expressionString).getValue(context);
     }
     
     /**
@@ -142,8 +209,7 @@ public class ExpressionUtil {
      * @return 解析结果
      */
     private static Object parseExpression(String expressionString, Object rootObject) {
-        Expression expression = parser.parseExpression(expressionString);
-        return expression.getValue(rootObject);
+        return getExpression(expressionString).getValue(rootObject);
     }
     
     /**
@@ -155,4 +221,36 @@ public class ExpressionUtil {
     private static boolean isEmpty(String str) {
         return str == null || str.trim().isEmpty();
     }
+    
+    /**
+     * 解析器与其表达式缓存，二者一一对应
+     */
+    private static final class ParsedExpressions {
+        
+        private final ExpressionParser parser;
+        
+        /**
+         * 已解析的表达式缓存 key: 表达式字符串
+         */
+        private final Cache<String, Expression> cache = CacheBuilder.newBuilder()
+                .maximumSize(EXPRESSION_CACHE_MAXIMUM_SIZE)
+                .build();
+        
+        private ParsedExpressions(ExpressionParser parser) {
+            this.parser = parser;
+        }
+        
+        private Expression get(String expressionString) {
+            try {
+                return cache.get(expressionString, () -> parser.parseExpression(expressionString));
+            } catch (UncheckedExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.web.common.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.LocalVariableTableParameterNameDiscoverer;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * @author : wh
+ * @date : 2024/9/20 10:12
+ * @description: ExpressionUtil 缓存前后性能对比
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpressionUtilBenchmark {
+    
+    private static final String EXPRESSION = "#orderId + ':' + #userId";
+    
+    private final ExpressionParser parser = new SpelExpressionParser();
+    
+    private final LocalVariableTableParameterNameDiscoverer discoverer = new LocalVariableTableParameterNameDiscoverer();
+    
+    private Method method;
+    
+    private Object[] args;
+    
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        method = ExpressionUtilBenchmark.class.getDeclaredMethod("order", Long.class, Long.class);
+        args = new Object[]{10086L, 2024L};
+    }
+    
+    /**
+     * 缓存前: 每次解析表达式并获取参数名
+     */
+    @Benchmark
+    public Object uncached() {
+        String[] paramNames = discoverer.getParameterNames(method);
+        EvaluationContext context = new StandardEvaluationContext();
+        for (int i = 0; i < paramNames.length; i++) {
+            context.setVariable(paramNames[i], args[i]);
+        }
+        return parser.parseExpression(EXPRESSION).getValue(context);
+    }
+    
+    @Benchmark
+    public Object cached() {
+        return ExpressionUtil.parse(EXPRESSION, method, args);
+    }
+    
+    @State(Scope.Benchmark)
+    public static class CompiledState {
+        
+        @Setup
+        public void setup() {
+            ExpressionUtil.setCompilerMode(SpelCompilerMode.IMMEDIATE);
+        }
+    }
+    
+    @Benchmark
+    public Object cachedCompiled(CompiledState state) {
+        return ExpressionUtil.parse(EXPRESSION, method, args);
+    }
+    
+    public void order(Long orderId, Long userId) {
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ExpressionUtilBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -21,11 +21,16 @@ import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.springframework.expression.spel.SpelCompilerMode;
 import org.springframework.expression.spel.SpelParseException;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -84,6 +89,30 @@ public class ExpressionUtilTest {
         assertNull(ExpressionUtil.parse(null, new Object()));
     }
     
+    @Test
+    public void testExpressionCache() {
+        assertSame(ExpressionUtil.getExpression("#param1"), ExpressionUtil.getExpression("#param1"));
+    }
+    
+    @Test
+    public void testCompilerMode() throws NoSuchMethodException {
+        Method method = TestClass.class.getDeclaredMethod("testMethod", String.class, int.class);
+        Object[] args = {"Hello", 5};
+        Object cached = ExpressionUtil.getExpression("#param1");
+        try {
+            ExpressionUtil.setCompilerMode(SpelCompilerMode.IMMEDIATE);
+            Object compiled = ExpressionUtil.getExpression("#param1");
+            assertNotSame(cached, compiled);
+            SpelParserConfiguration configuration = (SpelParserConfiguration) ReflectionTestUtils.getField(compiled, "configuration");
+            assertEquals(SpelCompilerMode.IMMEDIATE, configuration.getCompilerMode());
+            for (int i = 0; i < 3; i++) {
+                assertEquals("Hello", ExpressionUtil.parse("#param1", method, args));
+            }
+        } finally {
+            ExpressionUtil.setCompilerMode(SpelCompilerMode.OFF);
+        }
+    }
+    
     // 用于测试的内部类
     private static class TestClass {
         
@@ -19,11 +19,17 @@ package com.nebula.web.boot.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Charsets;
+import com.nebula.base.utils.JsonUtil;
 import com.nebula.web.boot.interceptor.NebulaResponseBodyHandleReturnValue;
+import com.nebula.web.boot.jackson.MappingApiCborHttpMessageConverter;
 import com.nebula.web.boot.jackson.MappingApiJackson2HttpMessageConverter;
+import com.nebula.web.boot.jackson.MappingApiSmileHttpMessageConverter;
+import com.nebula.web.boot.jackson.ObjectMapperRegistry;
 import com.nebula.web.boot.resolver.TimestampArgumentResolver;
 import java.util.List;
 import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
@@ -33,6 +39,8 @@ import org.springframework.http.converter.ResourceHttpMessageConverter;
 import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
 import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -42,18 +50,29 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
  */
 @Order(Ordered.HIGHEST_PRECEDENCE)
 @Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(NebulaWebProperties.class)
 @AllArgsConstructor
 public class BaseWebMvcConfig implements WebMvcConfigurer {
     
+    private static final boolean SMILE_PRESENT = ClassUtils.isPresent("com.fasterxml.jackson.dataformat.smile.SmileFactory", BaseWebMvcConfig.class.getClassLoader());
+    
+    private static final boolean CBOR_PRESENT = ClassUtils.isPresent("com.fasterxml.jackson.dataformat.cbor.CBORFactory", BaseWebMvcConfig.class.getClassLoader());
+    
     private final ObjectMapper objectMapper;
     
+    private final BeanFactory beanFactory;
+    
+    private final NebulaWebProperties properties;
+    
     @Override
     public void addReturnValueHandlers(List<HandlerMethodReturnValueHandler> returnValueHandlers) {
-        returnValueHandlers.add(new NebulaResponseBodyHandleReturnValue());
+        returnValueHandlers.add(new NebulaResponseBodyHandleReturnValue(new ObjectMapperRegistry(beanFactory)));
     }
     
     /**
      * 使用 JACKSON 作为JSON MessageConverter
+     * <p>
+     * 引入 jackson-dataformat-smile/cbor 时追加二进制转换器，Accept 为对应媒体类型的调用方使用二进制格式，其余仍为 JSON
      * @param converters
      */
     @Override
@@ -63,7 +82,35 @@ public class BaseWebMvcConfig implements WebMvcConfigurer {
         converters.add(new ByteArrayHttpMessageConverter());
         converters.add(new ResourceHttpMessageConverter());
         converters.add(new ResourceRegionHttpMessageConverter());
-        converters.add(new MappingApiJackson2HttpMessageConverter(objectMapper));
+        converters.add(new MappingApiJackson2HttpMessageConverter(converterObjectMapper()));
+        if (SMILE_PRESENT) {
+            converters.add(new MappingApiSmileHttpMessageConverter(binaryObjectMapperBuilder()));
+        }
+        if (CBOR_PRESENT) {
+            converters.add(new MappingApiCborHttpMessageConverter(binaryObjectMapperBuilder()));
+        }
+    }
+    
+    /**
+     * 开启 Blackbird 时拷贝后注册，不修改容器中的 ObjectMapper，写 ObjectMapper 由读 ObjectMapper 拷贝同样生效
+     */
+    private ObjectMapper converterObjectMapper() {
+        if (properties.getJackson().isBlackbird()) {
+            return JsonUtil.registerBlackbird(objectMapper.copy());
+        }
+        return objectMapper;
+    }
+    
+    /**
+     * 优先使用容器中的 Jackson2ObjectMapperBuilder，与 JSON ObjectMapper 保持相同的定制，factory 由各转换器指定
+     */
+    private Jackson2ObjectMapperBuilder binaryObjectMapperBuilder() {
+        Jackson2ObjectMapperBuilder builder = beanFactory.getBeanProvider(Jackson2ObjectMapperBuilder.class)
+                .getIfAvailable(Jackson2ObjectMapperBuilder::new);
+        if (properties.getJackson().isBlackbird()) {
+            builder.postConfigurer(JsonUtil::registerBlackbird);
+        }
+        return builder;
     }
     
     @Override
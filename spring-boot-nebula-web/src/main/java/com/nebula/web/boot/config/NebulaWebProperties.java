@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.web.boot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author : wh
+ * @date : 2024/10/15 14:20
+ * @description:
+ */
+@ConfigurationProperties(prefix = NebulaWebProperties.PREFIX)
+@Data
+public class NebulaWebProperties {
+    
+    public static final String PREFIX = "nebula.web";
+    
+    /**
+     * json 序列化
+     */
+    private Jackson jackson = new Jackson();
+    
+    @Data
+    public static class Jackson {
+        
+        /**
+         * 是否为消息转换器的读写 ObjectMapper 注册 Blackbird 字节码加速，需引入 jackson-module-blackbird
+         */
+        private boolean blackbird = false;
+    }
+}
@@ -17,13 +17,19 @@
  
 package com.nebula.web.boot.interceptor;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.nebula.base.utils.DataUtils;
-import com.nebula.base.utils.JsonUtil;
 import com.nebula.web.boot.annotation.NebulaResponseBody;
 import com.nebula.web.boot.api.NebulaResponse;
 import com.nebula.web.boot.enums.ResultCode;
-import java.util.Objects;
+import com.nebula.web.boot.jackson.ObjectMapperRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.AnnotatedElement;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.servlet.http.HttpServletResponse;
 import org.springframework.core.MethodParameter;
 import org.springframework.web.context.request.NativeWebRequest;
@@ -37,6 +43,22 @@ import org.springframework.web.method.support.ModelAndViewContainer;
 public class NebulaResponseBodyHandleReturnValue implements HandlerMethodReturnValueHandler, AsyncHandlerMethodReturnValueHandler {
     
     private static final String ContentType = "application/json;charset=utf-8";
+    
+    /**
+     * 方法上的注解，没有注解时为 empty
+     */
+    private final Map<AnnotatedElement, Optional<NebulaResponseBody>> annotationCache = new ConcurrentHashMap<>();
+    
+    private final ObjectMapperRegistry objectMapperRegistry;
+    
+    public NebulaResponseBodyHandleReturnValue() {
+        this(new ObjectMapperRegistry());
+    }
+    
+    public NebulaResponseBodyHandleReturnValue(ObjectMapperRegistry objectMapperRegistry) {
+        this.objectMapperRegistry = objectMapperRegistry;
+    }
+    
     /**
      * 处理所有非异常的错误
      *
@@ -46,8 +68,12 @@ public class NebulaResponseBodyHandleReturnValue implements HandlerMethodReturnV
     @Override
     public boolean supportsReturnType(MethodParameter returnType) {
         // 如果已经是基础的返回值
-        return returnType.getParameterType() != NebulaResponseBody.class
-                && DataUtils.isNotEmpty(returnType.getAnnotatedElement().getAnnotation(NebulaResponseBody.class));
+        return returnType.getParameterType() != NebulaResponseBody.class && findAnnotation(returnType).isPresent();
+    }
+    
+    private Optional<NebulaResponseBody> findAnnotation(MethodParameter returnType) {
+        return annotationCache.computeIfAbsent(returnType.getAnnotatedElement(),
+                element -> Optional.ofNullable(element.getAnnotation(NebulaResponseBody.class)));
     }
     
     @Override
@@ -61,15 +87,22 @@ public class NebulaResponseBodyHandleReturnValue implements HandlerMethodReturnV
         baseResponse.setMsg(ResultCode.SUCCESS.getMessage());
         baseResponse.setData(returnValue);
         
-        NebulaResponseBody responseBody = returnType.getAnnotatedElement().getAnnotation(NebulaResponseBody.class);
-        Class<? extends ObjectMapper> objectMapperClass = responseBody.objectMapper();
-        if (Objects.equals(objectMapperClass, JsonUtil.JacksonObjectMapper.class)) {
-            response.getWriter().write(Objects.requireNonNull(JsonUtil.toJSONString(baseResponse)));
-        } else {
-            ObjectMapper objectMapper = objectMapperClass.getDeclaredConstructor().newInstance();
-            response.getWriter().write(Objects.requireNonNull(JsonUtil.toJSONString(objectMapper, baseResponse)));
+        NebulaResponseBody responseBody = findAnnotation(returnType).orElseThrow();
+        ObjectMapper objectMapper = objectMapperRegistry.getObjectMapper(responseBody.objectMapper());
+        writeResponse(objectMapper, baseResponse, response.getOutputStream());
+    }
+    
+    /**
+     * 直接以 UTF-8 流式写入 OutputStream，不在内存中生成完整的 json 字符串
+     * <p>
+     * 序列化中途失败时已写出的部分无法撤回
+     */
+    static void writeResponse(ObjectMapper objectMapper, NebulaResponse<?> baseResponse, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+            // 由容器关闭 OutputStream
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            objectMapper.writeValue(generator, baseResponse);
         }
-        
     }
     
     @Override
@@ -35,7 +35,11 @@ import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
+import lombok.Value;
 import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConversionException;
@@ -56,6 +60,19 @@ public abstract class AbstractReadWriteJackson2HttpMessageConverter extends Abst
     @Nullable
     private PrettyPrinter ssePrettyPrinter;
     
+    /**
+     * 配置完成的 ObjectWriter 缓存，key 为 (声明类型, 实际类型, view, 是否 SSE)
+     * <p>
+     * ObjectWriter 创建时会固化 writeObjectMapper 的配置，mapper 需在转换器投入使用前配置完成；
+     * 媒体类型由客户端 Accept 决定，只取是否 SSE 参与 key，避免随机参数撑大缓存
+     */
+    private final Map<WriterKey, ObjectWriter> writerCache = new ConcurrentHashMap<>();
+    
+    /**
+     * canWrite 结果缓存，只缓存支持的 type/subtype，见 {@link #canWrite(Class, MediaType)}
+     */
+    private final Map<CanWriteKey, Boolean> canWriteCache = new ConcurrentHashMap<>();
+    
     public AbstractReadWriteJackson2HttpMessageConverter(ObjectMapper readObjectMapper, ObjectMapper writeObjectMapper) {
         super(readObjectMapper);
         this.writeObjectMapper = writeObjectMapper;
@@ -80,8 +97,31 @@ public abstract class AbstractReadWriteJackson2HttpMessageConverter extends Abst
         this.ssePrettyPrinter = prettyPrinter;
     }
     
+    /**
+     * 结果只与 type/subtype 有关，参数由客户端 Accept 决定，不参与缓存 key；
+     * type/subtype 不在支持列表中（如匹配 application/*+json 的任意子类型）时不缓存
+     */
     @Override
     public boolean canWrite(Class<?> clazz, @Nullable MediaType mediaType) {
+        if (mediaType == null) {
+            return canWriteCache.computeIfAbsent(new CanWriteKey(clazz, null, null), key -> canWrite0(clazz, null));
+        }
+        if (!isSupported(mediaType)) {
+            return canWrite0(clazz, mediaType);
+        }
+        return canWriteCache.computeIfAbsent(new CanWriteKey(clazz, mediaType.getType(), mediaType.getSubtype()), key -> canWrite0(clazz, mediaType));
+    }
+    
+    private boolean isSupported(MediaType mediaType) {
+        for (MediaType supportedMediaType : getSupportedMediaTypes()) {
+            if (supportedMediaType.getType().equals(mediaType.getType()) && supportedMediaType.getSubtype().equals(mediaType.getSubtype())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private boolean canWrite0(Class<?> clazz, @Nullable MediaType mediaType) {
         if (!canWrite(mediaType)) {
             return false;
         }
@@ -93,6 +133,15 @@ public abstract class AbstractReadWriteJackson2HttpMessageConverter extends Abst
         return false;
     }
     
+    @Override
+    public void setSupportedMediaTypes(List<MediaType> supportedMediaTypes) {
+        super.setSupportedMediaTypes(supportedMediaTypes);
+        // 支持的媒体类型变化后 canWrite 结果失效，父类构造器中调用时缓存尚未初始化
+        if (canWriteCache != null) {
+            canWriteCache.clear();
+        }
+    }
+    
     @Override
     protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
         
@@ -105,7 +154,6 @@ public abstract class AbstractReadWriteJackson2HttpMessageConverter extends Abst
             Object value = object;
             Class<?> serializationView = null;
             FilterProvider filters = null;
-            JavaType javaType = null;
             
             if (object instanceof MappingJacksonValue) {
                 MappingJacksonValue container = (MappingJacksonValue) object;
@@ -113,21 +161,15 @@ public abstract class AbstractReadWriteJackson2HttpMessageConverter extends Abst
                 serializationView = container.getSerializationView();
                 filters = container.getFilters();
             }
-            if (type != null && TypeUtils.isAssignable(type, value.getClass())) {
-                javaType = getJavaType(type, null);
-            }
-            
-            ObjectWriter objectWriter = (serializationView != null ? this.writeObjectMapper.writerWithView(serializationView) : this.writeObjectMapper.writer());
+            ObjectWriter objectWriter;
             if (filters != null) {
-                objectWriter = objectWriter.with(filters);
-            }
-            if (javaType != null && javaType.isContainerType()) {
-                objectWriter = objectWriter.forType(javaType);
-            }
-            SerializationConfig config = objectWriter.getConfig();
-            if (contentType != null && contentType.isCompatibleWith(MediaType.TEXT_EVENT_STREAM) &&
-                    config.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
-                objectWriter = objectWriter.with(this.ssePrettyPrinter);
+                // FilterProvider 为请求级对象，不参与缓存
+                objectWriter = buildWriter(type, value.getClass(), serializationView, contentType).with(filters);
+            } else {
+                Class<?> valueClass = value.getClass();
+                Class<?> view = serializationView;
+                objectWriter = writerCache.computeIfAbsent(new WriterKey(type, valueClass, view, isEventStream(contentType)),
+                        key -> buildWriter(type, valueClass, view, contentType));
             }
             objectWriter.writeValue(generator, value);
             
@@ -140,4 +182,45 @@ public abstract class AbstractReadWriteJackson2HttpMessageConverter extends Abst
         }
     }
     
+    private ObjectWriter buildWriter(@Nullable Type type, Class<?> valueClass, @Nullable Class<?> serializationView, @Nullable MediaType contentType) {
+        ObjectWriter objectWriter = (serializationView != null ? this.writeObjectMapper.writerWithView(serializationView) : this.writeObjectMapper.writer());
+        if (type != null && TypeUtils.isAssignable(type, valueClass)) {
+            JavaType javaType = getJavaType(type, null);
+            if (javaType.isContainerType()) {
+                objectWriter = objectWriter.forType(javaType);
+            }
+        }
+        SerializationConfig config = objectWriter.getConfig();
+        if (isEventStream(contentType) && config.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+            objectWriter = objectWriter.with(this.ssePrettyPrinter);
+        }
+        return objectWriter;
+    }
+    
+    private static boolean isEventStream(@Nullable MediaType contentType) {
+        return contentType != null && contentType.isCompatibleWith(MediaType.TEXT_EVENT_STREAM);
+    }
+    
+    @Value
+    private static class WriterKey {
+        
+        Type type;
+        
+        Class<?> valueClass;
+        
+        Class<?> view;
+        
+        boolean eventStream;
+    }
+    
+    @Value
+    private static class CanWriteKey {
+        
+        Class<?> clazz;
+        
+        String type;
+        
+        String subtype;
+    }
+    
 }
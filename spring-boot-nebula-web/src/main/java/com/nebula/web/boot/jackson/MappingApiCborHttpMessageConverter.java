@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.web.boot.jackson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.Assert;
+
+/**
+ * 基于 CBORFactory 的二进制消息转换器，读写 ObjectMapper 分离，用于服务间调用的内容协商
+ *
+ * @author : wh
+ * @date : 2024/10/16 10:20
+ * @description:
+ */
+public class MappingApiCborHttpMessageConverter extends AbstractReadWriteJackson2HttpMessageConverter {
+    
+    public MappingApiCborHttpMessageConverter() {
+        this(Jackson2ObjectMapperBuilder.cbor().build());
+    }
+    
+    /**
+     * @param objectMapper 需使用 {@link CBORFactory}
+     * @see Jackson2ObjectMapperBuilder#cbor()
+     */
+    public MappingApiCborHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper, objectMapper.copy(), MediaType.APPLICATION_CBOR);
+        Assert.isInstanceOf(CBORFactory.class, objectMapper.getFactory(), "CBORFactory required");
+        // 二进制格式，Content-Type 不携带 charset
+        setDefaultCharset(null);
+    }
+    
+    /**
+     * @param builder 已完成定制的 builder，factory 会被替换为 {@link CBORFactory}
+     */
+    public MappingApiCborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        this(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.web.boot.jackson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nebula.base.utils.JsonUtil;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.lang.Nullable;
+
+/**
+ * 按 ObjectMapper 类型缓存实例，每个类型只解析一次，序列化器缓存可以在请求之间复用
+ * <p>
+ * {@link JsonUtil.JacksonObjectMapper} 使用 {@link JsonUtil#getInstance()}；
+ * 其他类型优先使用容器中唯一的该类型 bean，没有时通过无参构造器创建一个实例
+ *
+ * @author : wh
+ * @date : 2024/10/14 14:10
+ * @description:
+ */
+public class ObjectMapperRegistry {
+    
+    @Nullable
+    private final BeanFactory beanFactory;
+    
+    private final Map<Class<? extends ObjectMapper>, ObjectMapper> objectMappers = new ConcurrentHashMap<>();
+    
+    public ObjectMapperRegistry() {
+        this(null);
+    }
+    
+    public ObjectMapperRegistry(@Nullable BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+    
+    /**
+     * 获取 ObjectMapper
+     *
+     * @param objectMapperClass ObjectMapper 类型
+     * @return 缓存的实例
+     */
+    public ObjectMapper getObjectMapper(Class<? extends ObjectMapper> objectMapperClass) {
+        return objectMappers.computeIfAbsent(objectMapperClass, this::resolve);
+    }
+    
+    private ObjectMapper resolve(Class<? extends ObjectMapper> objectMapperClass) {
+        if (objectMapperClass == JsonUtil.JacksonObjectMapper.class) {
+            return JsonUtil.getInstance();
+        }
+        if (beanFactory != null) {
+            ObjectMapper bean = beanFactory.getBeanProvider(objectMapperClass).getIfUnique();
+            if (bean != null) {
+                return bean;
+            }
+        }
+        return BeanUtils.instantiateClass(objectMapperClass);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.web.boot.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.nebula.base.utils.JsonUtil;
+import com.nebula.web.boot.api.NebulaResponse;
+import com.nebula.web.boot.enums.ResultCode;
+import com.nebula.web.boot.jackson.AbstractReadWriteJackson2HttpMessageConverter;
+import com.nebula.web.boot.jackson.MappingApiCborHttpMessageConverter;
+import com.nebula.web.boot.jackson.MappingApiJackson2HttpMessageConverter;
+import com.nebula.web.boot.jackson.MappingApiSmileHttpMessageConverter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author : wh
+ * @date : 2024/10/15 14:40
+ * @description:
+ */
+public class BaseWebMvcConfigTest {
+    
+    @Test
+    public void testBlackbirdOptIn() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        NebulaWebProperties properties = new NebulaWebProperties();
+        assertFalse(hasBlackbird(converterObjectMapper(objectMapper, properties)));
+        
+        properties.getJackson().setBlackbird(true);
+        assertTrue(hasBlackbird(converterObjectMapper(objectMapper, properties)));
+        // 容器中的 ObjectMapper 不受影响
+        assertFalse(hasBlackbird(objectMapper));
+    }
+    
+    @Test
+    public void testJsonUtilNotAutoRegister() {
+        assertTrue(JsonUtil.isBlackbirdPresent());
+        assertFalse(hasBlackbird(JsonUtil.getInstance()));
+    }
+    
+    @Test
+    public void testBinaryConverters() throws Exception {
+        List<HttpMessageConverter<?>> converters = converters(new ObjectMapper(), new NebulaWebProperties());
+        int size = converters.size();
+        // JSON 在前，未指定 Accept 的调用方仍使用 JSON
+        assertInstanceOf(MappingApiJackson2HttpMessageConverter.class, converters.get(size - 3));
+        assertInstanceOf(MappingApiSmileHttpMessageConverter.class, converters.get(size - 2));
+        assertInstanceOf(MappingApiCborHttpMessageConverter.class, converters.get(size - 1));
+        
+        NebulaResponse<Map<String, Integer>> response = new NebulaResponse<>();
+        response.setCode(ResultCode.SUCCESS.getCode());
+        response.setData(Map.of("count", 1));
+        MediaType smile = new MediaType("application", "x-jackson-smile");
+        assertRoundTrip((AbstractReadWriteJackson2HttpMessageConverter) converters.get(size - 2), new ObjectMapper(new SmileFactory()), smile, response);
+        assertRoundTrip((AbstractReadWriteJackson2HttpMessageConverter) converters.get(size - 1), new ObjectMapper(new CBORFactory()), MediaType.APPLICATION_CBOR, response);
+    }
+    
+    private void assertRoundTrip(AbstractReadWriteJackson2HttpMessageConverter converter, ObjectMapper reader, MediaType mediaType,
+                                 NebulaResponse<?> response) throws Exception {
+        assertTrue(converter.canWrite(NebulaResponse.class, mediaType));
+        assertFalse(converter.canWrite(NebulaResponse.class, MediaType.APPLICATION_JSON));
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(response, mediaType, message);
+        assertEquals(mediaType, message.getHeaders().getContentType());
+        assertEquals(new ObjectMapper().valueToTree(response), reader.readTree(message.getBodyAsBytes()));
+    }
+    
+    private List<HttpMessageConverter<?>> converters(ObjectMapper objectMapper, NebulaWebProperties properties) {
+        List<HttpMessageConverter<?>> converters = new ArrayList<>();
+        new BaseWebMvcConfig(objectMapper, new DefaultListableBeanFactory(), properties).configureMessageConverters(converters);
+        return converters;
+    }
+    
+    private ObjectMapper converterObjectMapper(ObjectMapper objectMapper, NebulaWebProperties properties) {
+        return converters(objectMapper, properties).stream()
+                .filter(MappingApiJackson2HttpMessageConverter.class::isInstance)
+                .map(converter -> ((MappingApiJackson2HttpMessageConverter) converter).getObjectMapper())
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+    }
+    
+    private boolean hasBlackbird(ObjectMapper objectMapper) {
+        return objectMapper.getRegisteredModuleIds().stream().anyMatch(id -> String.valueOf(id).contains("Blackbird"));
+    }
+}
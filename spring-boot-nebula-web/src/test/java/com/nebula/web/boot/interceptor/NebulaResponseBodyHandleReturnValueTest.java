@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.web.boot.interceptor;
+
+import com.nebula.base.utils.JsonUtil;
+import com.nebula.web.boot.annotation.NebulaResponseBody;
+import com.nebula.web.boot.api.NebulaResponse;
+import com.nebula.web.boot.enums.ResultCode;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author : wh
+ * @date : 2024/10/14 10:30
+ * @description:
+ */
+public class NebulaResponseBodyHandleReturnValueTest {
+    
+    private final NebulaResponseBodyHandleReturnValue handler = new NebulaResponseBodyHandleReturnValue();
+    
+    @NebulaResponseBody
+    public List<String> names() {
+        return null;
+    }
+    
+    @Test
+    public void testStreamingEnvelope() throws Exception {
+        MethodParameter returnType = new MethodParameter(getClass().getMethod("names"), -1);
+        assertTrue(handler.supportsReturnType(returnType));
+        
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        List<String> data = List.of("小明", "小红");
+        handler.handleReturnValue(data, returnType, new ModelAndViewContainer(),
+                new ServletWebRequest(new MockHttpServletRequest(), response));
+        
+        NebulaResponse<Object> expected = new NebulaResponse<>();
+        expected.setCode(ResultCode.SUCCESS.getCode());
+        expected.setMsg(ResultCode.SUCCESS.getMessage());
+        expected.setData(data);
+        assertEquals(JsonUtil.toJSONString(expected), new String(response.getContentAsByteArray(), StandardCharsets.UTF_8));
+        assertEquals("application/json;charset=utf-8", response.getContentType());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.web.boot.jackson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nebula.base.model.NebulaPageRes;
+import com.nebula.base.utils.JsonUtil;
+import com.nebula.web.boot.api.NebulaResponse;
+import com.nebula.web.boot.enums.ResultCode;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * @author : wh
+ * @date : 2024/10/15 15:10
+ * @description: 分页响应序列化 反射 与 Blackbird 性能对比
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlackbirdSerializationBenchmark {
+    
+    @Param({"20", "200"})
+    private int pageSize;
+    
+    private NebulaResponse<NebulaPageRes<OrderVO>> response;
+    
+    private ObjectMapper springMapper;
+    
+    private ObjectMapper springBlackbirdMapper;
+    
+    private ObjectMapper jsonUtilMapper;
+    
+    private ObjectMapper jsonUtilBlackbirdMapper;
+    
+    @Setup
+    public void setup() {
+        List<OrderVO> orders = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            OrderVO order = new OrderVO();
+            order.setId(10000L + i);
+            order.setOrderNo("NO20241015" + i);
+            order.setUserName("小明" + i);
+            order.setAmount(new BigDecimal("99.90").add(BigDecimal.valueOf(i)));
+            order.setQuantity(i % 5 + 1);
+            order.setPaid(i % 2 == 0);
+            order.setCreateTime(LocalDateTime.of(2024, 10, 15, 10, 30).plusMinutes(i));
+            orders.add(order);
+        }
+        response = new NebulaResponse<>();
+        response.setCode(ResultCode.SUCCESS.getCode());
+        response.setMsg(ResultCode.SUCCESS.getMessage());
+        response.setData(NebulaPageRes.of(orders, 10_000, pageSize));
+        
+        springMapper = Jackson2ObjectMapperBuilder.json().build();
+        springBlackbirdMapper = JsonUtil.registerBlackbird(Jackson2ObjectMapperBuilder.json().build());
+        jsonUtilMapper = new JsonUtil.JacksonObjectMapper();
+        jsonUtilBlackbirdMapper = JsonUtil.registerBlackbird(new JsonUtil.JacksonObjectMapper());
+    }
+    
+    @Benchmark
+    public byte[] springReflection() throws Exception {
+        return springMapper.writeValueAsBytes(response);
+    }
+    
+    @Benchmark
+    public byte[] springBlackbird() throws Exception {
+        return springBlackbirdMapper.writeValueAsBytes(response);
+    }
+    
+    @Benchmark
+    public byte[] jsonUtilReflection() throws Exception {
+        return jsonUtilMapper.writeValueAsBytes(response);
+    }
+    
+    @Benchmark
+    public byte[] jsonUtilBlackbird() throws Exception {
+        return jsonUtilBlackbirdMapper.writeValueAsBytes(response);
+    }
+    
+    @Data
+    public static class OrderVO {
+        
+        private Long id;
+        
+        private String orderNo;
+        
+        private String userName;
+        
+        private BigDecimal amount;
+        
+        private Integer quantity;
+        
+        private Boolean paid;
+        
+        private LocalDateTime createTime;
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BlackbirdSerializationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
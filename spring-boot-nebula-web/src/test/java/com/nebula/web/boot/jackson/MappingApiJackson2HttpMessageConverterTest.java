@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.web.boot.jackson;
+
+import com.fasterxml.jackson.annotation.JsonView;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author : wh
+ * @date : 2024/10/15 10:20
+ * @description:
+ */
+public class MappingApiJackson2HttpMessageConverterTest {
+    
+    private final MappingApiJackson2HttpMessageConverter converter = new MappingApiJackson2HttpMessageConverter();
+    
+    @Test
+    public void testCanWrite() {
+        assertTrue(converter.canWrite(Student.class, MediaType.APPLICATION_JSON));
+        assertTrue(converter.canWrite(Student.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(Student.class, MediaType.TEXT_HTML));
+        assertTrue(converter.canWrite(Student.class, null));
+    }
+    
+    @Test
+    public void testCacheIgnoresMediaTypeParameters() throws Exception {
+        MappingApiJackson2HttpMessageConverter converter = new MappingApiJackson2HttpMessageConverter();
+        Student student = new Student("小明", 18);
+        for (int i = 0; i < 100; i++) {
+            MediaType mediaType = new MediaType(MediaType.APPLICATION_JSON, Map.of("x", String.valueOf(i)));
+            assertTrue(converter.canWrite(Student.class, mediaType));
+            converter.write(student, Student.class, mediaType, new MockHttpOutputMessage());
+            assertTrue(converter.canWrite(Student.class, new MediaType("application", "x-" + i + "+json")));
+        }
+        assertTrue(converter.canWrite(Student.class, MediaType.parseMediaType("application/json;charset=UTF-16BE")));
+        assertEquals(1, ((Map<?, ?>) ReflectionTestUtils.getField(converter, "canWriteCache")).size());
+        assertEquals(1, ((Map<?, ?>) ReflectionTestUtils.getField(converter, "writerCache")).size());
+    }
+    
+    @Test
+    public void testCachedWriter() throws Exception {
+        List<Student> students = List.of(new Student("小明", 18));
+        String expected = "[{\"name\":\"小明\",\"age\":18}]";
+        for (int i = 0; i < 2; i++) {
+            MockHttpOutputMessage message = new MockHttpOutputMessage();
+            converter.write(students, new ParameterizedTypeReference<List<Student>>() {
+            }.getType(), MediaType.APPLICATION_JSON, message);
+            assertEquals(expected, message.getBodyAsString(StandardCharsets.UTF_8));
+        }
+    }
+    
+    @Test
+    public void testViewNotShared() throws Exception {
+        Student student = new Student("小明", 18);
+        MappingJacksonValue value = new MappingJacksonValue(student);
+        value.setSerializationView(Summary.class);
+        MockHttpOutputMessage viewMessage = new MockHttpOutputMessage();
+        converter.write(value, Student.class, MediaType.APPLICATION_JSON, viewMessage);
+        assertEquals("{\"name\":\"小明\"}", viewMessage.getBodyAsString(StandardCharsets.UTF_8));
+        
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(student, Student.class, MediaType.APPLICATION_JSON, message);
+        assertEquals("{\"name\":\"小明\",\"age\":18}", message.getBodyAsString(StandardCharsets.UTF_8));
+    }
+    
+    public interface Summary {
+    }
+    
+    @Getter
+    @AllArgsConstructor
+    public static class Student {
+        
+        @JsonView(Summary.class)
+        private String name;
+        
+        private Integer age;
+    }
+}
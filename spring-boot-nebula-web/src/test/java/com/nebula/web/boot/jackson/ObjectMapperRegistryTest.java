@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.nebula.web.boot.jackson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nebula.base.utils.JsonUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author : wh
+ * @date : 2024/10/14 14:40
+ * @description:
+ */
+public class ObjectMapperRegistryTest {
+    
+    @Test
+    public void testCachedInstance() {
+        ObjectMapperRegistry registry = new ObjectMapperRegistry();
+        assertSame(JsonUtil.getInstance(), registry.getObjectMapper(JsonUtil.JacksonObjectMapper.class));
+        assertSame(registry.getObjectMapper(SnakeCaseObjectMapper.class), registry.getObjectMapper(SnakeCaseObjectMapper.class));
+    }
+    
+    @Test
+    public void testPreferBean() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        SnakeCaseObjectMapper bean = new SnakeCaseObjectMapper();
+        beanFactory.registerSingleton("snakeCaseObjectMapper", bean);
+        assertSame(bean, new ObjectMapperRegistry(beanFactory).getObjectMapper(SnakeCaseObjectMapper.class));
+    }
+    
+    public static class SnakeCaseObjectMapper extends ObjectMapper {
+        
+        private static final long serialVersionUID = 1L;
+    }
+}